@@ -0,0 +1,69 @@
+package org.camunda.bpm.grpc.client.impl;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.client.variable.impl.TypedValueField;
+import org.camunda.bpm.grpc.TypedValueFieldDto;
+import org.camunda.bpm.grpc.ValueEncoding;
+import org.camunda.bpm.grpc.core.VariableShape;
+import org.camunda.bpm.grpc.core.VariableUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of variables between the client and the wire format, when
+ * receiving locked tasks and when sending outcomes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineClientGrpcBenchmark {
+
+  @Param
+  public VariableShape shape;
+
+  private Map<String, TypedValueFieldDto> anyFields;
+  private Map<String, TypedValueFieldDto> compactFields;
+  private Map<String, TypedValueField> typedValueFields;
+
+  @Setup
+  public void setUp() {
+    anyFields = VariableUtils.toTypedValueFields(shape.createVariables(), ValueEncoding.ANY);
+    compactFields = VariableUtils.toTypedValueFields(shape.createVariables(), ValueEncoding.COMPACT);
+    typedValueFields = EngineClientGrpc.fromTypedValueFields(anyFields);
+  }
+
+  @Benchmark
+  public Map<String, TypedValueField> fromTypedValueFieldsAny() {
+    return EngineClientGrpc.fromTypedValueFields(anyFields);
+  }
+
+  @Benchmark
+  public Map<String, TypedValueField> fromTypedValueFieldsCompact() {
+    return EngineClientGrpc.fromTypedValueFields(compactFields);
+  }
+
+  @Benchmark
+  public Map<String, TypedValueFieldDto> toTypedValueFieldsAny() {
+    return EngineClientGrpc.toTypedValueFields(typedValueFields, ValueEncoding.ANY);
+  }
+
+  @Benchmark
+  public Map<String, TypedValueFieldDto> toTypedValueFieldsCompact() {
+    return EngineClientGrpc.toTypedValueFields(typedValueFields, ValueEncoding.COMPACT);
+  }
+
+}
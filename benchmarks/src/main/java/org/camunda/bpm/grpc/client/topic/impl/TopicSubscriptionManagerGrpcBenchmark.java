@@ -0,0 +1,74 @@
+package org.camunda.bpm.grpc.client.topic.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.grpc.LockedExternalTaskDto;
+import org.camunda.bpm.grpc.ValueEncoding;
+import org.camunda.bpm.grpc.core.VariableShape;
+import org.camunda.bpm.grpc.core.VariableUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.protobuf.Timestamp;
+
+/**
+ * Mapping of a received locked task to the external task handed to the
+ * handler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicSubscriptionManagerGrpcBenchmark {
+
+  @Param
+  public VariableShape shape;
+
+  private LockedExternalTaskDto anyTask;
+  private LockedExternalTaskDto compactTask;
+
+  @Setup
+  public void setUp() {
+    anyTask = createLockedTask(ValueEncoding.ANY);
+    compactTask = createLockedTask(ValueEncoding.COMPACT);
+  }
+
+  protected LockedExternalTaskDto createLockedTask(ValueEncoding encoding) {
+    return LockedExternalTaskDto.newBuilder()
+        .setId("5f3a8c2e-4b1d-11eb-ae93-0242ac130002")
+        .setActivityId("ServiceTask_1")
+        .setActivityInstanceId("ServiceTask_1:5f3a8c2d-4b1d-11eb-ae93-0242ac130002")
+        .setExecutionId("5f3a8c2c-4b1d-11eb-ae93-0242ac130002")
+        .setProcessInstanceId("5f3a8c2b-4b1d-11eb-ae93-0242ac130002")
+        .setProcessDefinitionId("order:1:4e2b7d1a-4b1d-11eb-ae93-0242ac130002")
+        .setProcessDefinitionKey("order")
+        .setTopicName("ship")
+        .setWorkerId("benchmark-worker")
+        .setLockExpirationTime(Timestamp.newBuilder().setSeconds(1609459200L))
+        .putAllVariables(VariableUtils.toTypedValueFields(shape.createVariables(), encoding))
+        .build();
+  }
+
+  @Benchmark
+  public ExternalTask toAny() {
+    return TopicSubscriptionManagerGrpc.to(anyTask);
+  }
+
+  @Benchmark
+  public ExternalTask toCompact() {
+    return TopicSubscriptionManagerGrpc.to(compactTask);
+  }
+
+}
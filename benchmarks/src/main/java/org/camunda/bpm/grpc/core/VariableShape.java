@@ -0,0 +1,107 @@
+package org.camunda.bpm.grpc.core;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+
+/**
+ * Variable shapes the benchmarks are run with, modeled after the variables
+ * typical processes pass to their external tasks.
+ */
+public enum VariableShape {
+
+  /** a handful of primitive variables */
+  SMALL_PRIMITIVES {
+    @Override
+    public VariableMap createVariables() {
+      return Variables.createVariables()
+          .putValueTyped("orderId", Variables.stringValue("order-4711"))
+          .putValueTyped("amount", Variables.doubleValue(1249.95))
+          .putValueTyped("quantity", Variables.integerValue(12))
+          .putValueTyped("customerNumber", Variables.longValue(100023456789L))
+          .putValueTyped("express", Variables.booleanValue(true))
+          .putValueTyped("orderDate", Variables.dateValue(new Date(1609459200000L)));
+    }
+  },
+
+  /** 50 primitive variables of mixed types */
+  MAP_50 {
+    @Override
+    public VariableMap createVariables() {
+      VariableMap variables = Variables.createVariables();
+      for (int i = 0; i < 50; i++) {
+        switch (i % 4) {
+        case 0:
+          variables.putValueTyped("string" + i, Variables.stringValue("value of variable " + i));
+          break;
+        case 1:
+          variables.putValueTyped("long" + i, Variables.longValue(i * 1000003L));
+          break;
+        case 2:
+          variables.putValueTyped("double" + i, Variables.doubleValue(i / 7d));
+          break;
+        default:
+          variables.putValueTyped("boolean" + i, Variables.booleanValue(i % 8 == 3));
+        }
+      }
+      return variables;
+    }
+  },
+
+  /**
+   * lists of lists and maps, these have no engine value type and are sent
+   * untyped
+   */
+  NESTED_LIST {
+    @Override
+    public VariableMap createVariables() {
+      List<Object> items = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        List<Object> item = new ArrayList<>();
+        item.add("item-" + i);
+        item.add((long) i);
+        item.add(i * 2.5d);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("color", i % 2 == 0 ? "red" : "blue");
+        attributes.put("weight", i * 10L);
+        item.add(attributes);
+        items.add(item);
+      }
+      return Variables.createVariables().putValue("items", items);
+    }
+  },
+
+  /** a single byte array variable of 1 MB */
+  BYTES_1MB {
+    @Override
+    public VariableMap createVariables() {
+      byte[] bytes = new byte[1024 * 1024];
+      new Random(4711).nextBytes(bytes);
+      return Variables.createVariables().putValueTyped("document", Variables.byteArrayValue(bytes));
+    }
+  };
+
+  /**
+   * @return the variables of the shape as the engine holds them
+   */
+  public abstract VariableMap createVariables();
+
+  /**
+   * @return the plain values of the shape
+   */
+  public Map<String, Object> createValues() {
+    VariableMap variables = createVariables();
+    Map<String, Object> values = new HashMap<>();
+    for (String name : variables.keySet()) {
+      values.put(name, variables.getValue(name, Object.class));
+    }
+    return values;
+  }
+
+}
@@ -0,0 +1,94 @@
+package org.camunda.bpm.grpc.core;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.grpc.TypedValueFieldDto;
+import org.camunda.bpm.grpc.Value;
+import org.camunda.bpm.grpc.ValueEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.protobuf.Any;
+
+/**
+ * Packing and unpacking of plain values and typed variables as done by the
+ * server and the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariableUtilsBenchmark {
+
+  @Param
+  public VariableShape shape;
+
+  private Map<String, Object> values;
+  private Any packedValues;
+  private Map<String, Any> packedMap;
+  private Map<String, Value> packedValueMap;
+  private VariableMap variables;
+
+  @Setup
+  public void setUp() {
+    values = shape.createValues();
+    packedValues = VariableUtils.pack(values);
+    packedMap = VariableUtils.packMap(values);
+    packedValueMap = VariableUtils.packValueMap(values);
+    variables = shape.createVariables();
+  }
+
+  @Benchmark
+  public Any pack() {
+    return VariableUtils.pack(values);
+  }
+
+  @Benchmark
+  public Object unpack() {
+    return VariableUtils.unpack(packedValues);
+  }
+
+  @Benchmark
+  public Map<String, Any> packMap() {
+    return VariableUtils.packMap(values);
+  }
+
+  @Benchmark
+  public Map<String, Object> unpackMap() {
+    return VariableUtils.unpackMap(packedMap);
+  }
+
+  @Benchmark
+  public Map<String, Value> packValueMap() {
+    return VariableUtils.packValueMap(values);
+  }
+
+  @Benchmark
+  public Map<String, Object> unpackValueMap() {
+    return VariableUtils.unpackValueMap(packedValueMap, false);
+  }
+
+  @Benchmark
+  public Map<String, TypedValueFieldDto> toTypedValueFieldsAny() {
+    return VariableUtils.toTypedValueFields(variables, ValueEncoding.ANY);
+  }
+
+  @Benchmark
+  public Map<String, TypedValueFieldDto> toTypedValueFieldsCompact() {
+    return VariableUtils.toTypedValueFields(variables, ValueEncoding.COMPACT);
+  }
+
+}
@@ -0,0 +1,108 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.impl.variable.ValueTypeResolverImpl;
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.type.ValueTypeResolver;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.camunda.bpm.grpc.TypedValueFieldDto;
+import org.camunda.bpm.grpc.ValueEncoding;
+import org.camunda.bpm.grpc.core.VariableShape;
+import org.camunda.bpm.grpc.core.VariableUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Conversion of the variables of received outcomes to the typed values passed
+ * to the engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExternalTaskServiceGrpcBenchmark {
+
+  // untyped nested lists cannot be passed to the engine
+  @Param({ "SMALL_PRIMITIVES", "MAP_50", "BYTES_1MB" })
+  public VariableShape shape;
+
+  private ExternalTaskServiceGrpc service;
+  private Map<String, TypedValueFieldDto> anyFields;
+  private Map<String, TypedValueFieldDto> compactFields;
+  private List<UnpackedField> unpackedFields;
+
+  @Setup
+  public void setUp() {
+    service = new StandaloneExternalTaskServiceGrpc();
+    anyFields = VariableUtils.toTypedValueFields(shape.createVariables(), ValueEncoding.ANY);
+    compactFields = VariableUtils.toTypedValueFields(shape.createVariables(), ValueEncoding.COMPACT);
+    unpackedFields = new ArrayList<>();
+    for (Entry<String, TypedValueFieldDto> entry : anyFields.entrySet()) {
+      unpackedFields.add(new UnpackedField(entry.getValue().getType(), VariableUtils.unpackValue(entry.getValue(), false),
+          VariableUtils.unpackValueInfo(entry.getValue(), false)));
+    }
+  }
+
+  @Benchmark
+  public VariableMap fromTypedValueFieldsAny() {
+    return service.fromTypedValueFields(anyFields);
+  }
+
+  @Benchmark
+  public VariableMap fromTypedValueFieldsCompact() {
+    return service.fromTypedValueFields(compactFields);
+  }
+
+  @Benchmark
+  public void toTypedValue(Blackhole blackhole) {
+    for (UnpackedField field : unpackedFields) {
+      TypedValue typedValue = service.toTypedValue(field.type, field.value, field.valueInfo);
+      blackhole.consume(typedValue);
+    }
+  }
+
+  /**
+   * Resolves value types without a process engine, the conversion itself
+   * does not access it.
+   */
+  protected static class StandaloneExternalTaskServiceGrpc extends ExternalTaskServiceGrpc {
+
+    private final ValueTypeResolver valueTypeResolver = new ValueTypeResolverImpl();
+
+    @Override
+    protected ValueTypeResolver getValueTypeResolver() {
+      return valueTypeResolver;
+    }
+  }
+
+  protected static class UnpackedField {
+
+    private final String type;
+    private final Object value;
+    private final Map<String, Object> valueInfo;
+
+    protected UnpackedField(String type, Object value, Map<String, Object> valueInfo) {
+      this.type = type;
+      this.value = value;
+      this.valueInfo = valueInfo;
+    }
+  }
+
+}
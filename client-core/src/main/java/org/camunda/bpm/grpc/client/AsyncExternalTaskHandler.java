@@ -0,0 +1,59 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client;
+
+import java.util.concurrent.CompletionStage;
+
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+/**
+ * Handles external tasks without holding a thread until the task is done, e.g.
+ * with a non-blocking HTTP or database client. The gRPC client keeps the task
+ * in flight until the returned stage completes and reports its outcome then.
+ * A stage completed exceptionally is treated like an exception thrown by a
+ * synchronous handler, it is logged and the task is locked again once its
+ * lock expired.
+ *
+ * <p>
+ * Subscribe it like any other handler. Clients other than the gRPC client
+ * call {@link #execute(ExternalTask, ExternalTaskService)}, which waits for
+ * the stage.
+ */
+@FunctionalInterface
+public interface AsyncExternalTaskHandler extends ExternalTaskHandler {
+
+  /**
+   * Starts handling the task, must not block.
+   *
+   * @param externalTask
+   *          the task
+   * @return the stage completed with the outcome of the task, an outcome of
+   *         <code>null</code> reports nothing
+   */
+  CompletionStage<ExternalTaskOutcome> executeAsync(ExternalTask externalTask);
+
+  @Override
+  default void execute(ExternalTask externalTask, ExternalTaskService externalTaskService) {
+    ExternalTaskOutcome outcome = executeAsync(externalTask).toCompletableFuture().join();
+    if (outcome != null) {
+      outcome.apply(externalTask, externalTaskService);
+    }
+  }
+
+}
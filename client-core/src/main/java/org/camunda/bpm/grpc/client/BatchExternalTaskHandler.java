@@ -0,0 +1,98 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+/**
+ * Handles the tasks of a topic in batches, e.g. to write them with one JDBC
+ * batch. The gRPC client collects received tasks until the batch reached its
+ * maximum size or the maximum wait time after its first task passed. The
+ * completions of a batch are sent to the server with one call, other
+ * outcomes are reported one by one.
+ * <p>
+ * Tasks waiting for their batch occupy a handler slot, a batch thus never
+ * grows beyond maxTasks of the client. Clients other than the gRPC client
+ * call {@link #execute(ExternalTask, ExternalTaskService)} with batches of a
+ * single task.
+ */
+@FunctionalInterface
+public interface BatchExternalTaskHandler extends ExternalTaskHandler {
+
+  /**
+   * Handles a batch of tasks.
+   *
+   * @param externalTasks
+   *          the tasks of the batch
+   * @return one outcome for every task in the order of the tasks, an outcome
+   *         of <code>null</code> reports nothing for its task
+   */
+  List<ExternalTaskOutcome> executeBatch(List<ExternalTask> externalTasks);
+
+  /**
+   * @return the maximum number of tasks of a batch
+   */
+  default int getMaxBatchSize() {
+    return 100;
+  }
+
+  /**
+   * @return the time in milliseconds a batch waits for more tasks after its
+   *         first task was received
+   */
+  default long getMaxWaitMillis() {
+    return 100;
+  }
+
+  @Override
+  default void execute(ExternalTask externalTask, ExternalTaskService externalTaskService) {
+    List<ExternalTaskOutcome> outcomes = executeBatch(Collections.singletonList(externalTask));
+    if (!outcomes.isEmpty() && outcomes.get(0) != null) {
+      outcomes.get(0).apply(externalTask, externalTaskService);
+    }
+  }
+
+  /**
+   * Creates a batch handler with the given limits.
+   */
+  static BatchExternalTaskHandler of(int maxBatchSize, long maxWaitMillis, Function<List<ExternalTask>, List<ExternalTaskOutcome>> handler) {
+    return new BatchExternalTaskHandler() {
+
+      @Override
+      public List<ExternalTaskOutcome> executeBatch(List<ExternalTask> externalTasks) {
+        return handler.apply(externalTasks);
+      }
+
+      @Override
+      public int getMaxBatchSize() {
+        return maxBatchSize;
+      }
+
+      @Override
+      public long getMaxWaitMillis() {
+        return maxWaitMillis;
+      }
+    };
+  }
+
+}
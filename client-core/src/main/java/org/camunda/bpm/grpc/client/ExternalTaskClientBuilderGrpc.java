@@ -0,0 +1,96 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client;
+
+import java.util.concurrent.Executor;
+
+import org.camunda.bpm.client.ExternalTaskClientBuilder;
+
+/**
+ * <p>Fluent builder for the Camunda gRPC client offering options specific to
+ * the gRPC API in addition to the ones of the Java client. Apply these options
+ * before the general ones, as the latter return the general builder.</p>
+ */
+public interface ExternalTaskClientBuilderGrpc extends ExternalTaskClientBuilder {
+
+  /**
+   * Sends task outcomes (completions, failures, BPMN errors, lock extensions
+   * and unlocks) over one long-lived stream instead of a call per outcome.
+   * Requires a server supporting the outcome stream. With
+   * {@link #prefetchOnComplete()} completions that lock the next task are
+   * still sent as calls of their own, only they can carry the locked tasks
+   * back.
+   *
+   * @return the builder
+   */
+  ExternalTaskClientBuilderGrpc useOutcomeStream();
+
+  /**
+   * Completing a task locks the next task for the client's subscriptions in
+   * the same call, the slot of the completed task is handed over to it. If no
+   * slot is left or the server does not support the combined call, the task
+   * is completed on its own. These completions bypass the outcome stream.
+   *
+   * @return the builder
+   */
+  ExternalTaskClientBuilderGrpc prefetchOnComplete();
+
+  /**
+   * Locked tasks only carry the names and types of their variables. A value is
+   * fetched from the server when it is accessed for the first time and kept
+   * for the lifetime of the task. Pays off if handlers only read a few of
+   * many fetched variables.
+   *
+   * @return the builder
+   */
+  ExternalTaskClientBuilderGrpc lazyVariables();
+
+  /**
+   * Number of threads executing the handlers. Handlers never run on the gRPC
+   * callback threads, the client executes them in a pool of its own with
+   * maxTasks threads by default. With less threads, tasks wait for a free
+   * thread, maxTasks still limits the tasks locked at a time.
+   *
+   * @param handlerThreads
+   *          the number of threads
+   * @return the builder
+   */
+  ExternalTaskClientBuilderGrpc handlerThreads(int handlerThreads);
+
+  /**
+   * Executes the handlers with the given executor instead of a pool of the
+   * client, e.g. to share one pool between clients. The executor is not shut
+   * down when the client is stopped. Tasks rejected by the executor are
+   * unlocked.
+   *
+   * @param handlerExecutor
+   *          the executor
+   * @return the builder
+   */
+  ExternalTaskClientBuilderGrpc handlerExecutor(Executor handlerExecutor);
+
+  /**
+   * Executes each handler on a virtual thread of its own when running on Java
+   * 21 or later, e.g. for I/O-bound handlers. At most maxTasks handlers run at
+   * a time, raise maxTasks to lock and handle more tasks concurrently. On
+   * older JVMs the handlers are executed in the client's thread pool.
+   *
+   * @return the builder
+   */
+  ExternalTaskClientBuilderGrpc useVirtualThreads();
+
+}
@@ -16,7 +16,6 @@
  */
 package org.camunda.bpm.grpc.client;
 
-import org.camunda.bpm.client.ExternalTaskClientBuilder;
 import org.camunda.bpm.grpc.client.impl.ExternalTaskClientBuilderImplGrpc;
 
 /**
@@ -29,7 +28,7 @@ public interface ExternalTaskClientGrpc {
    *
    * @return builder to apply configurations on
    */
-  static ExternalTaskClientBuilder create() {
+  static ExternalTaskClientBuilderGrpc create() {
     return new ExternalTaskClientBuilderImplGrpc();
   }
 }
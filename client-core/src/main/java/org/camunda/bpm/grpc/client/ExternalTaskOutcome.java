@@ -0,0 +1,93 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client;
+
+import java.util.Map;
+
+import org.camunda.bpm.client.task.ExternalTask;
+import org.camunda.bpm.client.task.ExternalTaskService;
+
+/**
+ * The outcome of an external task reported by an
+ * {@link AsyncExternalTaskHandler}.
+ */
+@FunctionalInterface
+public interface ExternalTaskOutcome {
+
+  /**
+   * Reports the outcome of the task.
+   *
+   * @param externalTask
+   *          the task
+   * @param externalTaskService
+   *          the service reporting the outcome to the server
+   */
+  void apply(ExternalTask externalTask, ExternalTaskService externalTaskService);
+
+  static ExternalTaskOutcome complete() {
+    return new Complete(null, null);
+  }
+
+  static ExternalTaskOutcome complete(Map<String, Object> variables) {
+    return new Complete(variables, null);
+  }
+
+  static ExternalTaskOutcome complete(Map<String, Object> variables, Map<String, Object> localVariables) {
+    return new Complete(variables, localVariables);
+  }
+
+  static ExternalTaskOutcome failure(String errorMessage, String errorDetails, int retries, long retryTimeout) {
+    return (task, service) -> service.handleFailure(task, errorMessage, errorDetails, retries, retryTimeout);
+  }
+
+  static ExternalTaskOutcome bpmnError(String errorCode) {
+    return (task, service) -> service.handleBpmnError(task, errorCode);
+  }
+
+  static ExternalTaskOutcome bpmnError(String errorCode, String errorMessage, Map<String, Object> variables) {
+    return (task, service) -> service.handleBpmnError(task, errorCode, errorMessage, variables);
+  }
+
+  /**
+   * Completes the task, completions of a batch are sent to the server with
+   * one call.
+   */
+  final class Complete implements ExternalTaskOutcome {
+
+    private final Map<String, Object> variables;
+    private final Map<String, Object> localVariables;
+
+    public Complete(Map<String, Object> variables, Map<String, Object> localVariables) {
+      this.variables = variables;
+      this.localVariables = localVariables;
+    }
+
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    public Map<String, Object> getLocalVariables() {
+      return localVariables;
+    }
+
+    @Override
+    public void apply(ExternalTask externalTask, ExternalTaskService externalTaskService) {
+      externalTaskService.complete(externalTask, variables, localVariables);
+    }
+  }
+
+}
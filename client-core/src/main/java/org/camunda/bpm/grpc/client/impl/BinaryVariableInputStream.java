@@ -0,0 +1,105 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.camunda.bpm.grpc.GetBinaryVariableResponse;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Context.CancellableContext;
+import io.grpc.StatusRuntimeException;
+
+/**
+ * Reads the chunks of a streamed binary variable. Only the current chunk is
+ * held in memory, the next one is requested from the server once it was read.
+ * Closing the stream before its end cancels the call.
+ */
+public class BinaryVariableInputStream extends InputStream {
+
+  protected final CancellableContext context;
+  protected final Iterator<GetBinaryVariableResponse> chunks;
+  protected ByteString chunk = ByteString.EMPTY;
+  protected int position;
+  protected boolean closed;
+
+  public BinaryVariableInputStream(CancellableContext context, Iterator<GetBinaryVariableResponse> chunks) {
+    this.context = context;
+    this.chunks = chunks;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextChunk()) {
+      return -1;
+    }
+    return chunk.byteAt(position++) & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextChunk()) {
+      return -1;
+    }
+    int length = Math.min(len, chunk.size() - position);
+    chunk.substring(position, position + length).copyTo(b, off);
+    position += length;
+    return length;
+  }
+
+  @Override
+  public int available() {
+    return chunk.size() - position;
+  }
+
+  /**
+   * @return <code>false</code> if the end of the content is reached
+   */
+  protected boolean nextChunk() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    try {
+      while (position >= chunk.size()) {
+        if (!chunks.hasNext()) {
+          return false;
+        }
+        chunk = chunks.next().getData();
+        position = 0;
+      }
+      return true;
+    } catch (StatusRuntimeException e) {
+      throw new IOException("Could not receive binary variable: " + e.getStatus(), e);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      chunk = ByteString.EMPTY;
+      context.cancel(null);
+    }
+  }
+
+}
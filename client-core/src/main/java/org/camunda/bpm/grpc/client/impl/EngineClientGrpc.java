@@ -16,7 +16,13 @@
  */
 package org.camunda.bpm.grpc.client.impl;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.function.Function;
@@ -24,7 +30,12 @@ import java.util.function.Function;
 import org.camunda.bpm.client.impl.EngineClient;
 import org.camunda.bpm.client.impl.EngineClientException;
 import org.camunda.bpm.client.variable.impl.TypedValueField;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.camunda.bpm.grpc.CompleteAndFetchRequest;
+import org.camunda.bpm.grpc.CompleteAndFetchResponse;
+import org.camunda.bpm.grpc.CompleteBatchRequest;
 import org.camunda.bpm.grpc.CompleteRequest;
+import org.camunda.bpm.grpc.CompleteResult;
 import org.camunda.bpm.grpc.ExtendLockRequest;
 import org.camunda.bpm.grpc.ExternalTaskGrpc;
 import org.camunda.bpm.grpc.ExternalTaskGrpc.ExternalTaskBlockingStub;
@@ -32,17 +43,25 @@ import org.camunda.bpm.grpc.ExternalTaskGrpc.ExternalTaskStub;
 import org.camunda.bpm.grpc.FetchAndLockRequest;
 import org.camunda.bpm.grpc.FetchAndLockResponse;
 import org.camunda.bpm.grpc.GetBinaryVariableRequest;
-import org.camunda.bpm.grpc.GetBinaryVariableResponse;
+import org.camunda.bpm.grpc.GetVariablesRequest;
 import org.camunda.bpm.grpc.HandleBpmnErrorRequest;
 import org.camunda.bpm.grpc.HandleFailureRequest;
+import org.camunda.bpm.grpc.OutcomeRequest;
+import org.camunda.bpm.grpc.OutcomeResponse;
 import org.camunda.bpm.grpc.TypedValueFieldDto;
 import org.camunda.bpm.grpc.UnlockRequest;
+import org.camunda.bpm.grpc.ValueEncoding;
+import org.camunda.bpm.grpc.client.impl.OutcomeStreamGrpc.OutcomeCallback;
 import org.camunda.bpm.grpc.core.VariableUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.grpc.Context;
+import io.grpc.Context.CancellableContext;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 
 public class EngineClientGrpc extends EngineClient {
@@ -52,53 +71,211 @@ public class EngineClientGrpc extends EngineClient {
   protected ManagedChannel channel;
   protected ExternalTaskStub stub;
   protected ExternalTaskBlockingStub blockingStub;
+  /** sends outcomes over one long-lived stream if set, otherwise each outcome is a call of its own */
+  protected OutcomeStreamGrpc outcomeStream;
+  /** locks the next tasks along with completions if set */
+  protected volatile TaskPrefetcher taskPrefetcher;
+  /** whether locked tasks only carry variable names and types */
+  protected boolean lazyVariables;
+  /** the encoding of variable values sent to the server, switches to COMPACT once the server announced it */
+  protected volatile ValueEncoding valueEncoding = ValueEncoding.ANY;
 
   public EngineClientGrpc(String workerId, int maxTasks, Long asyncResponseTimeout, String baseUrl) {
     this(workerId, maxTasks, asyncResponseTimeout, baseUrl, true);
   }
 
   public EngineClientGrpc(String workerId, int maxTasks, Long asyncResponseTimeout, String baseUrl, boolean usePriority) {
+    this(workerId, maxTasks, asyncResponseTimeout, baseUrl, usePriority, false);
+  }
+
+  public EngineClientGrpc(String workerId, int maxTasks, Long asyncResponseTimeout, String baseUrl, boolean usePriority, boolean useOutcomeStream) {
     super(workerId, maxTasks, asyncResponseTimeout, baseUrl, null, usePriority);
     this.channel = ManagedChannelBuilder.forTarget(baseUrl).usePlaintext().build();
     this.stub = ExternalTaskGrpc.newStub(channel);
     this.blockingStub = ExternalTaskGrpc.newBlockingStub(channel);
+    if (useOutcomeStream) {
+      this.outcomeStream = new OutcomeStreamGrpc(stub);
+    }
+  }
+
+  public int getMaxTasks() {
+    return maxTasks;
+  }
+
+  public Long getAsyncResponseTimeout() {
+    return asyncResponseTimeout;
+  }
+
+  public boolean isLazyVariables() {
+    return lazyVariables;
+  }
+
+  public void setLazyVariables(boolean lazyVariables) {
+    this.lazyVariables = lazyVariables;
+  }
+
+  public ValueEncoding getValueEncoding() {
+    return valueEncoding;
+  }
+
+  public void setValueEncoding(ValueEncoding valueEncoding) {
+    this.valueEncoding = valueEncoding;
+  }
+
+  public void setTaskPrefetcher(TaskPrefetcher taskPrefetcher) {
+    this.taskPrefetcher = taskPrefetcher;
   }
 
   public StreamObserver<FetchAndLockRequest> fetchAndLock(StreamObserver<FetchAndLockResponse> responseObserver) {
     return stub.fetchAndLock(responseObserver);
   }
 
+  /**
+   * Completes the outcome stream if outcomes are reported over it, the
+   * outcomes sent so far are still answered.
+   */
+  public void closeOutcomeStream() {
+    if (outcomeStream != null) {
+      outcomeStream.close();
+    }
+  }
+
   @Override
   public void unlock(String taskId) throws EngineClientException {
     UnlockRequest request = UnlockRequest.newBuilder()
         .setId(taskId)
         .build();
 
-    stub.unlock(request, createLoggingObserver(
-        response -> "Task "+ request.getId() + " unlocked with status " + response.getStatus(),
-        "Could not unlock the task " + request.getId() + " (server error)"));
+    Function<Integer, String> successMessage = status -> "Task " + request.getId() + " unlocked with status " + status;
+    String failureLogMessage = "Could not unlock the task " + request.getId() + " (server error)";
+    if (outcomeStream != null) {
+      outcomeStream.send(OutcomeRequest.newBuilder().setUnlock(request), createLoggingCallback(successMessage, failureLogMessage));
+    } else {
+      stub.unlock(request, createLoggingObserver(response -> successMessage.apply(response.getStatus()), failureLogMessage));
+    }
   }
 
   @Override
   public void complete(String taskId, Map<String, Object> variables, Map<String, Object> localVariables) throws EngineClientException {
-    Map<String, TypedValueFieldDto> typedValueDtoMap = toTypedValueFields(typedValues.serializeVariables(variables));
-    Map<String, TypedValueFieldDto> localTypedValueDtoMap = toTypedValueFields(typedValues.serializeVariables(localVariables));
+    Function<Integer, String> successMessage = status -> "Task " + taskId + " completed with status " + status;
+    String failureLogMessage = "Could not complete the task " + taskId + " (server error)";
+    if (containsFiles(variables) || containsFiles(localVariables)) {
+      completeWithFiles(taskId, variables, localVariables, successMessage, failureLogMessage);
+      return;
+    }
+
+    CompleteRequest request = createCompleteRequest(taskId, variables, localVariables);
+    TaskPrefetcher prefetcher = taskPrefetcher;
+    FetchAndLockRequest fetchRequest = prefetcher != null ? prefetcher.reserve() : null;
+    if (fetchRequest != null) {
+      completeAndFetch(request, fetchRequest, prefetcher, successMessage, failureLogMessage);
+    } else if (outcomeStream != null) {
+      outcomeStream.send(OutcomeRequest.newBuilder().setComplete(request), createLoggingCallback(successMessage, failureLogMessage));
+    } else {
+      stub.complete(request, createLoggingObserver(response -> successMessage.apply(response.getStatus()), failureLogMessage));
+    }
+  }
+
+  /**
+   * Uploads the file variables in chunks instead of encoding them into the
+   * completion.
+   */
+  protected void completeWithFiles(String taskId, Map<String, Object> variables, Map<String, Object> localVariables,
+      Function<Integer, String> successMessage, String errorMessage) throws EngineClientException {
+    FileUploadGrpc upload = new FileUploadGrpc(createCompleteRequest(taskId, withoutFiles(variables), withoutFiles(localVariables)),
+        successMessage, errorMessage);
+    upload.addFiles(variables, false);
+    upload.addFiles(localVariables, true);
+    stub.completeWithFiles(upload);
+  }
+
+  public static boolean containsFiles(Map<String, Object> variables) {
+    return variables != null && variables.values().stream().anyMatch(FileValue.class::isInstance);
+  }
+
+  protected static Map<String, Object> withoutFiles(Map<String, Object> variables) {
+    if (variables == null) {
+      return null;
+    }
+    Map<String, Object> result = new HashMap<>();
+    variables.forEach((name, value) -> {
+      if (!(value instanceof FileValue)) {
+        result.put(name, value);
+      }
+    });
+    return result;
+  }
+
+  protected void completeAndFetch(CompleteRequest request, FetchAndLockRequest fetchRequest, TaskPrefetcher prefetcher,
+      Function<Integer, String> successMessage, String errorMessage) {
+    CompleteAndFetchRequest completeAndFetchRequest = CompleteAndFetchRequest.newBuilder()
+        .setComplete(request)
+        .setFetch(fetchRequest)
+        .build();
+
+    stub.completeAndFetch(completeAndFetchRequest, new StreamObserver<CompleteAndFetchResponse>() {
+      @Override
+      public void onNext(CompleteAndFetchResponse response) {
+        if (response.getStatus() < HttpURLConnection.HTTP_MULT_CHOICE) {
+          LOG.info(successMessage.apply(response.getStatus()));
+        } else {
+          LOG.error("{}: {} {}", errorMessage, response.getStatus(), response.getErrorMessage());
+        }
+        prefetcher.tasksPrefetched(response.getTasksList());
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        prefetcher.tasksPrefetched(Collections.emptyList());
+        if (Status.UNIMPLEMENTED.getCode().equals(Status.fromThrowable(throwable).getCode())) {
+          // older servers only know the plain completion
+          LOG.info("Server does not support completing and fetching in one call, falling back to separate calls");
+          taskPrefetcher = null;
+          stub.complete(request, createLoggingObserver(response -> successMessage.apply(response.getStatus()), errorMessage));
+        } else {
+          LOG.error(errorMessage, throwable);
+        }
+      }
+
+      @Override
+      public void onCompleted() {
+        // nothing to do
+      }
+    });
+  }
+
+  /**
+   * Completes all tasks with one call, the server groups them into as few
+   * transactions as possible.
+   *
+   * @return the result for every request in the order of the requests
+   */
+  public List<CompleteResult> completeBatch(List<CompleteRequest> requests) {
+    CompleteBatchRequest request = CompleteBatchRequest.newBuilder()
+        .addAllRequests(requests)
+        .build();
 
-    CompleteRequest request = CompleteRequest.newBuilder()
+    List<CompleteResult> results = blockingStub.completeBatch(request).getResultsList();
+    LOG.info("Batch of {} tasks completed", results.size());
+    return results;
+  }
+
+  public CompleteRequest createCompleteRequest(String taskId, Map<String, Object> variables, Map<String, Object> localVariables) throws EngineClientException {
+    Map<String, TypedValueFieldDto> typedValueDtoMap = toTypedValueFields(typedValues.serializeVariables(variables), valueEncoding);
+    Map<String, TypedValueFieldDto> localTypedValueDtoMap = toTypedValueFields(typedValues.serializeVariables(localVariables), valueEncoding);
+
+    return CompleteRequest.newBuilder()
         .setWorkerId(workerId)
         .setId(taskId)
         .putAllLocalVariables(localTypedValueDtoMap)
         .putAllVariables(typedValueDtoMap)
         .build();
-
-    stub.complete(request, createLoggingObserver(
-        response -> "Task " + request.getId() + " completed with status " + response.getStatus(),
-        "Could not complete the task " + request.getId() + " (server error)"));
   }
 
   @Override
   public void failure(String taskId, String errorMessage, String errorDetails, int retries, long retryTimeout) throws EngineClientException {
     HandleFailureRequest request = HandleFailureRequest.newBuilder()
+        .setWorkerId(workerId)
         .setId(taskId)
         .setErrorMessage(errorMessage)
         .setErrorDetails(errorDetails)
@@ -106,51 +283,105 @@ public class EngineClientGrpc extends EngineClient {
         .setRetryTimeout(retryTimeout)
         .build();
 
-    stub.handleFailure(request, createLoggingObserver(
-        response -> "Failure for Task " + request.getId() + " handled with status " + response.getStatus(),
-        "Could not handle the failure for the task " + request.getId() + " (server error)"));
+    Function<Integer, String> successMessage = status -> "Failure for Task " + request.getId() + " handled with status " + status;
+    String failureLogMessage = "Could not handle the failure for the task " + request.getId() + " (server error)";
+    if (outcomeStream != null) {
+      outcomeStream.send(OutcomeRequest.newBuilder().setFailure(request), createLoggingCallback(successMessage, failureLogMessage));
+    } else {
+      stub.handleFailure(request, createLoggingObserver(response -> successMessage.apply(response.getStatus()), failureLogMessage));
+    }
   }
 
   @Override
   public void bpmnError(String taskId, String errorCode, String errorMessage, Map<String, Object> variables) throws EngineClientException {
-    Map<String, TypedValueFieldDto> typedValueDtoMap = toTypedValueFields(typedValues.serializeVariables(variables));
+    Map<String, TypedValueFieldDto> typedValueDtoMap = toTypedValueFields(typedValues.serializeVariables(variables), valueEncoding);
 
     HandleBpmnErrorRequest request = HandleBpmnErrorRequest.newBuilder()
+        .setWorkerId(workerId)
         .setId(taskId)
         .setErrorCode(errorCode)
         .setErrorMessage(errorMessage)
         .putAllVariables(typedValueDtoMap)
         .build();
 
-    stub.handleBpmnError(request, createLoggingObserver(
-        response -> "BPMN Error for Task " + request.getId() + " handled with status " + response.getStatus(),
-        "Could not handle the BPMN Error for the task " + request.getId() + " (server error)"));
+    Function<Integer, String> successMessage = status -> "BPMN Error for Task " + request.getId() + " handled with status " + status;
+    String failureLogMessage = "Could not handle the BPMN Error for the task " + request.getId() + " (server error)";
+    if (outcomeStream != null) {
+      outcomeStream.send(OutcomeRequest.newBuilder().setBpmnError(request), createLoggingCallback(successMessage, failureLogMessage));
+    } else {
+      stub.handleBpmnError(request, createLoggingObserver(response -> successMessage.apply(response.getStatus()), failureLogMessage));
+    }
   }
 
   @Override
   public void extendLock(String taskId, long newDuration) throws EngineClientException {
     ExtendLockRequest request = ExtendLockRequest.newBuilder()
+        .setWorkerId(workerId)
         .setId(taskId)
         .setDuration(newDuration)
         .build();
 
-    stub.extendLock(request, createLoggingObserver(
-        response -> "Lock for Task " + request.getId() + " extended with status " + response.getStatus(),
-        "Could not extend the lock for the task " + request.getId() + " (server error)"));
+    Function<Integer, String> successMessage = status -> "Lock for Task " + request.getId() + " extended with status " + status;
+    String failureLogMessage = "Could not extend the lock for the task " + request.getId() + " (server error)";
+    if (outcomeStream != null) {
+      outcomeStream.send(OutcomeRequest.newBuilder().setExtendLock(request), createLoggingCallback(successMessage, failureLogMessage));
+    } else {
+      stub.extendLock(request, createLoggingObserver(response -> successMessage.apply(response.getStatus()), failureLogMessage));
+    }
+  }
+
+  /**
+   * Fetches the values of variables visible from the execution of a task
+   * locked by this worker.
+   */
+  public Map<String, TypedValueField> getVariables(String taskId, List<String> variableNames, boolean localVariables) {
+    GetVariablesRequest request = GetVariablesRequest.newBuilder()
+        .setTaskId(taskId)
+        .setWorkerId(workerId)
+        .addAllVariableNames(variableNames)
+        .setLocalVariables(localVariables)
+        .setValueEncoding(valueEncoding)
+        .build();
+
+    return fromTypedValueFields(blockingStub.getVariables(request).getVariablesMap());
   }
 
   @Override
-  public byte[] getLocalBinaryVariable(String variableName, String processInstanceId) throws EngineClientException {
+  public byte[] getLocalBinaryVariable(String variableName, String executionId) throws EngineClientException {
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    try (InputStream content = getLocalBinaryVariableStream(variableName, executionId)) {
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = content.read(buffer)) != -1) {
+        data.write(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      // keeps the status of the call, e.g. NOT_FOUND or PERMISSION_DENIED
+      throw new EngineClientException(e.getCause() instanceof StatusRuntimeException ? e.getCause() : e);
+    }
+    return data.size() == 0 ? null : data.toByteArray();
+  }
+
+  /**
+   * Streams the content of a local file or bytes variable, the content is
+   * received in chunks while it is read. Close the stream to cancel receiving
+   * the rest of the content. A task of the execution has to be locked by the
+   * worker.
+   */
+  public InputStream getLocalBinaryVariableStream(String variableName, String executionId) {
     GetBinaryVariableRequest request = GetBinaryVariableRequest.newBuilder()
-        .setProcessInstanceId(processInstanceId)
+        .setExecutionId(executionId)
         .setVariableName(variableName)
+        .setWorkerId(workerId)
         .build();
 
-    GetBinaryVariableResponse localBinaryVariable = blockingStub.getLocalBinaryVariable(request);
-    if (localBinaryVariable == null || localBinaryVariable.getData() == null || localBinaryVariable.getData().isEmpty()) {
-      return null;
+    CancellableContext context = Context.current().withCancellation();
+    Context previous = context.attach();
+    try {
+      return new BinaryVariableInputStream(context, blockingStub.getLocalBinaryVariable(request));
+    } finally {
+      context.detach(previous);
     }
-    return localBinaryVariable.getData().toByteArray();
   }
 
   protected static <T> StreamObserver<T> createLoggingObserver(Function<T, String> succesMessageFunction, String errorMessage) {
@@ -172,13 +403,53 @@ public class EngineClientGrpc extends EngineClient {
     };
   }
 
+  protected static OutcomeCallback createLoggingCallback(Function<Integer, String> succesMessageFunction, String errorMessage) {
+    return new OutcomeCallback() {
+      @Override
+      public void onResponse(OutcomeResponse response) {
+        if (response.getStatus() < HttpURLConnection.HTTP_MULT_CHOICE) {
+          LOG.info(succesMessageFunction.apply(response.getStatus()));
+        } else {
+          LOG.error("{}: {} {}", errorMessage, response.getStatus(), response.getErrorMessage());
+        }
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        LOG.error(errorMessage, throwable);
+      }
+    };
+  }
+
+  public static Map<String, TypedValueField> fromTypedValueFields(Map<String, TypedValueFieldDto> variablesMap) {
+    Map<String, TypedValueField> map = new HashMap<>();
+    for (Entry<String, TypedValueFieldDto> entry : variablesMap.entrySet()) {
+      TypedValueField field = new TypedValueField();
+      field.setType(entry.getValue().getType());
+      // dates are mapped from strings like in ANY encoding
+      field.setValue(VariableUtils.unpackValue(entry.getValue(), true));
+      field.setValueInfo(VariableUtils.unpackValueInfo(entry.getValue(), true));
+      map.put(entry.getKey(), field);
+    }
+    return map;
+  }
+
   protected static Map<String, TypedValueFieldDto> toTypedValueFields(Map<String, TypedValueField> variablesMap) {
+    return toTypedValueFields(variablesMap, ValueEncoding.ANY);
+  }
+
+  protected static Map<String, TypedValueFieldDto> toTypedValueFields(Map<String, TypedValueField> variablesMap, ValueEncoding encoding) {
     Map<String, TypedValueFieldDto> map = new HashMap<>();
     for (Entry<String, TypedValueField> entry : variablesMap.entrySet()) {
       TypedValueFieldDto.Builder field = TypedValueFieldDto.newBuilder();
       field.setType(entry.getValue().getType());
-      field.setValue(VariableUtils.pack(entry.getValue().getValue()));
-      field.putAllValueInfo(VariableUtils.packMap(entry.getValue().getValueInfo()));
+      if (encoding == ValueEncoding.COMPACT) {
+        field.setCompactValue(VariableUtils.packValue(entry.getValue().getValue()));
+        field.putAllCompactValueInfo(VariableUtils.packValueMap(entry.getValue().getValueInfo()));
+      } else {
+        field.setValue(VariableUtils.pack(entry.getValue().getValue()));
+        field.putAllValueInfo(VariableUtils.packMap(entry.getValue().getValueInfo()));
+      }
       map.put(entry.getKey(), field.build());
     }
     return map;
@@ -16,14 +16,67 @@
  */
 package org.camunda.bpm.grpc.client.impl;
 
+import java.util.concurrent.Executor;
+
 import org.camunda.bpm.client.impl.ExternalTaskClientBuilderImpl;
+import org.camunda.bpm.grpc.client.ExternalTaskClientBuilderGrpc;
 import org.camunda.bpm.grpc.client.topic.impl.TopicSubscriptionManagerGrpc;
 
-public class ExternalTaskClientBuilderImplGrpc extends ExternalTaskClientBuilderImpl {
+public class ExternalTaskClientBuilderImplGrpc extends ExternalTaskClientBuilderImpl implements ExternalTaskClientBuilderGrpc {
+
+  protected boolean useOutcomeStream;
+  protected boolean prefetchOnComplete;
+  protected boolean lazyVariables;
+  protected int handlerThreads;
+  protected Executor handlerExecutor;
+  protected boolean useVirtualThreads;
+
+  @Override
+  public ExternalTaskClientBuilderGrpc useOutcomeStream() {
+    this.useOutcomeStream = true;
+    return this;
+  }
+
+  @Override
+  public ExternalTaskClientBuilderGrpc prefetchOnComplete() {
+    this.prefetchOnComplete = true;
+    return this;
+  }
+
+  @Override
+  public ExternalTaskClientBuilderGrpc lazyVariables() {
+    this.lazyVariables = true;
+    return this;
+  }
+
+  @Override
+  public ExternalTaskClientBuilderGrpc handlerThreads(int handlerThreads) {
+    this.handlerThreads = handlerThreads;
+    return this;
+  }
+
+  @Override
+  public ExternalTaskClientBuilderGrpc handlerExecutor(Executor handlerExecutor) {
+    this.handlerExecutor = handlerExecutor;
+    return this;
+  }
+
+  @Override
+  public ExternalTaskClientBuilderGrpc useVirtualThreads() {
+    this.useVirtualThreads = true;
+    return this;
+  }
 
   @Override
   protected void initTopicSubscriptionManager() {
-    topicSubscriptionManager = new TopicSubscriptionManagerGrpc(engineClient, typedValues, lockDuration);
+    TopicSubscriptionManagerGrpc topicSubscriptionManagerGrpc = new TopicSubscriptionManagerGrpc(engineClient, typedValues, lockDuration);
+    topicSubscriptionManagerGrpc.setHandlerThreads(handlerThreads);
+    topicSubscriptionManagerGrpc.setHandlerExecutor(handlerExecutor);
+    topicSubscriptionManagerGrpc.setUseVirtualThreads(useVirtualThreads);
+    if (prefetchOnComplete) {
+      ((EngineClientGrpc) engineClient).setTaskPrefetcher(topicSubscriptionManagerGrpc);
+    }
+    topicSubscriptionManager = topicSubscriptionManagerGrpc;
 
     if (isAutoFetchingEnabled()) {
       topicSubscriptionManager.start();
@@ -32,7 +85,9 @@ public class ExternalTaskClientBuilderImplGrpc extends ExternalTaskClientBuilder
 
   @Override
   protected void initEngineClient() {
-    engineClient = new EngineClientGrpc(workerId, maxTasks, asyncResponseTimeout, baseUrl, usePriority);
+    EngineClientGrpc engineClientGrpc = new EngineClientGrpc(workerId, maxTasks, asyncResponseTimeout, baseUrl, usePriority, useOutcomeStream);
+    engineClientGrpc.setLazyVariables(lazyVariables);
+    engineClient = engineClientGrpc;
   }
 
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.camunda.bpm.grpc.CompleteRequest;
+import org.camunda.bpm.grpc.CompleteResponse;
+import org.camunda.bpm.grpc.CompleteUploadRequest;
+import org.camunda.bpm.grpc.FileVariableHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+
+/**
+ * Uploads the file variables of a completion as raw chunks. A chunk is only
+ * read from a file once the transport is ready to send it, so neither the
+ * whole file nor an encoded copy of it is held in memory.
+ */
+public class FileUploadGrpc implements ClientResponseObserver<CompleteUploadRequest, CompleteResponse> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileUploadGrpc.class);
+
+  public static final int CHUNK_SIZE = 64 * 1024;
+
+  protected final CompleteRequest completeRequest;
+  protected final Function<Integer, String> successMessageFunction;
+  protected final String errorMessage;
+  protected final List<FileVariable> files = new ArrayList<>();
+  protected final byte[] buffer = new byte[CHUNK_SIZE];
+
+  protected ClientCallStreamObserver<CompleteUploadRequest> requestStream;
+  protected boolean completeSent;
+  protected Iterator<FileVariable> pendingFiles;
+  protected InputStream content;
+  protected boolean done;
+
+  public FileUploadGrpc(CompleteRequest completeRequest, Function<Integer, String> successMessageFunction, String errorMessage) {
+    this.completeRequest = completeRequest;
+    this.successMessageFunction = successMessageFunction;
+    this.errorMessage = errorMessage;
+  }
+
+  /**
+   * Adds all file values of the variables to the upload.
+   */
+  public void addFiles(Map<String, Object> variables, boolean local) {
+    if (variables == null) {
+      return;
+    }
+    for (Entry<String, Object> variable : variables.entrySet()) {
+      if (variable.getValue() instanceof FileValue) {
+        FileValue file = (FileValue) variable.getValue();
+        FileVariableHeader.Builder header = FileVariableHeader.newBuilder()
+            .setName(variable.getKey())
+            .setLocal(local)
+            .setFilename(file.getFilename());
+        if (file.getMimeType() != null) {
+          header.setMimeType(file.getMimeType());
+        }
+        if (file.getEncoding() != null) {
+          header.setEncoding(file.getEncoding());
+        }
+        files.add(new FileVariable(header.build(), file));
+      }
+    }
+  }
+
+  @Override
+  public void beforeStart(ClientCallStreamObserver<CompleteUploadRequest> requestStream) {
+    this.requestStream = requestStream;
+    this.pendingFiles = files.iterator();
+    requestStream.setOnReadyHandler(this::send);
+  }
+
+  protected synchronized void send() {
+    if (done) {
+      return;
+    }
+    try {
+      while (requestStream.isReady()) {
+        CompleteUploadRequest part = nextPart();
+        if (part == null) {
+          done = true;
+          requestStream.onCompleted();
+          return;
+        }
+        requestStream.onNext(part);
+      }
+    } catch (IOException e) {
+      LOG.error(errorMessage, e);
+      finish();
+      requestStream.cancel("Could not read file variable", e);
+    }
+  }
+
+  /**
+   * @return the next part to send or <code>null</code> if all parts were sent
+   */
+  protected CompleteUploadRequest nextPart() throws IOException {
+    if (!completeSent) {
+      completeSent = true;
+      return CompleteUploadRequest.newBuilder().setComplete(completeRequest).build();
+    }
+    while (true) {
+      if (content == null) {
+        if (!pendingFiles.hasNext()) {
+          return null;
+        }
+        FileVariable file = pendingFiles.next();
+        InputStream value = file.value.getValue();
+        content = value != null ? value : new ByteArrayInputStream(new byte[0]);
+        return CompleteUploadRequest.newBuilder().setFile(file.header).build();
+      }
+      int length = content.read(buffer);
+      if (length > 0) {
+        return CompleteUploadRequest.newBuilder().setChunk(ByteString.copyFrom(buffer, 0, length)).build();
+      }
+      if (length < 0) {
+        closeContent();
+      }
+    }
+  }
+
+  @Override
+  public void onNext(CompleteResponse response) {
+    LOG.info(successMessageFunction.apply(response.getStatus()));
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    LOG.error(errorMessage, throwable);
+    finish();
+  }
+
+  @Override
+  public void onCompleted() {
+    // nothing to do
+  }
+
+  protected synchronized void finish() {
+    done = true;
+    closeContent();
+  }
+
+  protected void closeContent() {
+    if (content != null) {
+      try {
+        content.close();
+      } catch (IOException e) {
+        LOG.debug("Could not close file variable", e);
+      }
+      content = null;
+    }
+  }
+
+  protected static class FileVariable {
+
+    protected final FileVariableHeader header;
+    protected final FileValue value;
+
+    protected FileVariable(FileVariableHeader header, FileValue value) {
+      this.header = header;
+      this.value = value;
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client.impl;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.camunda.bpm.client.variable.impl.TypedValueField;
+
+/**
+ * A variable of a locked task that only carries its type until its value is
+ * accessed for the first time. The value is then fetched from the server and
+ * kept for the lifetime of the task.
+ */
+public class LazyTypedValueField extends TypedValueField {
+
+  protected final EngineClientGrpc engineClient;
+  protected final String taskId;
+  protected final String variableName;
+  protected final boolean localVariables;
+  protected volatile boolean loaded;
+
+  public LazyTypedValueField(EngineClientGrpc engineClient, String taskId, String variableName, String type, boolean localVariables) {
+    this.engineClient = engineClient;
+    this.taskId = taskId;
+    this.variableName = variableName;
+    this.localVariables = localVariables;
+    setType(type);
+  }
+
+  @Override
+  public Object getValue() {
+    load();
+    return super.getValue();
+  }
+
+  @Override
+  public Map<String, Object> getValueInfo() {
+    load();
+    return super.getValueInfo();
+  }
+
+  protected void load() {
+    if (loaded) {
+      return;
+    }
+    synchronized (this) {
+      if (!loaded) {
+        Map<String, TypedValueField> variables = engineClient.getVariables(taskId, Collections.singletonList(variableName), localVariables);
+        TypedValueField field = variables.get(variableName);
+        if (field != null) {
+          super.setValue(field.getValue());
+          super.setValueInfo(field.getValueInfo());
+        }
+        loaded = true;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.camunda.bpm.grpc.ExternalTaskGrpc.ExternalTaskStub;
+import org.camunda.bpm.grpc.OutcomeRequest;
+import org.camunda.bpm.grpc.OutcomeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+
+/**
+ * Sends task outcomes over one long-lived stream instead of a call per
+ * outcome. Outcomes are pipelined, the server answers each of them with its
+ * correlation id. The stream is opened on the first outcome and reopened after
+ * it failed. Outcomes are only written while the transport is ready, the
+ * others wait in the stream until it becomes ready again.
+ */
+public class OutcomeStreamGrpc {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OutcomeStreamGrpc.class);
+
+  /** handles the answer to a single outcome */
+  public interface OutcomeCallback {
+
+    void onResponse(OutcomeResponse response);
+
+    void onError(Throwable throwable);
+  }
+
+  protected final ExternalTaskStub stub;
+  protected final AtomicLong correlationIds = new AtomicLong();
+  protected Stream stream;
+
+  public OutcomeStreamGrpc(ExternalTaskStub stub) {
+    this.stub = stub;
+  }
+
+  public void send(OutcomeRequest.Builder request, OutcomeCallback callback) {
+    long correlationId = correlationIds.incrementAndGet();
+    Stream target = null;
+    try {
+      synchronized (this) {
+        if (stream == null) {
+          stream = new Stream();
+          stub.reportOutcomes(stream);
+        }
+        target = stream;
+        target.pendingOutcomes.put(correlationId, callback);
+        target.unsentOutcomes.add(request.setCorrelationId(correlationId).build());
+        target.sendUnsentOutcomes();
+      }
+    } catch (RuntimeException e) {
+      if (target == null || target.pendingOutcomes.remove(correlationId) != null) {
+        callback.onError(e);
+      }
+    }
+  }
+
+  /**
+   * Completes the stream once the outcomes waiting for the transport were
+   * sent, outcomes sent afterwards go to a new stream.
+   */
+  public synchronized void close() {
+    if (stream != null) {
+      stream.completionRequested = true;
+      stream.sendUnsentOutcomes();
+      stream = null;
+    }
+  }
+
+  protected synchronized void closed(Stream closedStream) {
+    if (stream == closedStream) {
+      // outcomes sent afterwards go to a new stream
+      stream = null;
+    }
+  }
+
+  protected class Stream implements ClientResponseObserver<OutcomeRequest, OutcomeResponse> {
+
+    protected final ConcurrentMap<Long, OutcomeCallback> pendingOutcomes = new ConcurrentHashMap<>();
+    // guarded by the monitor of the enclosing instance
+    protected final Queue<OutcomeRequest> unsentOutcomes = new ArrayDeque<>();
+    protected ClientCallStreamObserver<OutcomeRequest> requestStream;
+    protected boolean completionRequested;
+    protected boolean completed;
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<OutcomeRequest> requestStream) {
+      this.requestStream = requestStream;
+      requestStream.setOnReadyHandler(() -> {
+        synchronized (OutcomeStreamGrpc.this) {
+          sendUnsentOutcomes();
+        }
+      });
+    }
+
+    protected void sendUnsentOutcomes() {
+      if (completed) {
+        return;
+      }
+      while (!unsentOutcomes.isEmpty() && requestStream.isReady()) {
+        requestStream.onNext(unsentOutcomes.poll());
+      }
+      if (completionRequested && unsentOutcomes.isEmpty()) {
+        completed = true;
+        requestStream.onCompleted();
+      }
+    }
+
+    @Override
+    public void onNext(OutcomeResponse response) {
+      OutcomeCallback callback = pendingOutcomes.remove(response.getCorrelationId());
+      if (callback == null) {
+        LOG.warn("Received response for unknown outcome {}", response.getCorrelationId());
+      } else {
+        callback.onResponse(response);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      LOG.error("Outcome stream failed, {} outcomes remain unanswered", pendingOutcomes.size(), throwable);
+      failPendingOutcomes(throwable);
+    }
+
+    @Override
+    public void onCompleted() {
+      failPendingOutcomes(new IllegalStateException("Outcome stream completed by the server"));
+    }
+
+    protected void failPendingOutcomes(Throwable throwable) {
+      closed(this);
+      synchronized (OutcomeStreamGrpc.this) {
+        completed = true;
+        unsentOutcomes.clear();
+      }
+      for (Long correlationId : new ArrayList<>(pendingOutcomes.keySet())) {
+        OutcomeCallback callback = pendingOutcomes.remove(correlationId);
+        if (callback != null) {
+          callback.onError(throwable);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client.impl;
+
+import java.util.List;
+
+import org.camunda.bpm.grpc.FetchAndLockRequest;
+import org.camunda.bpm.grpc.LockedExternalTaskDto;
+
+/**
+ * Lets the engine client lock the next tasks along with completing a task, so
+ * workers get their next task without a separate fetch.
+ */
+public interface TaskPrefetcher {
+
+  /**
+   * Reserves a handler slot for the tasks locked along with a completion.
+   *
+   * @return the request locking the next tasks or <code>null</code> if no
+   *         tasks should be locked along with the completion
+   */
+  FetchAndLockRequest reserve();
+
+  /**
+   * Hands over the tasks locked along with a completion and releases the
+   * reserved slot. Called with an empty list if no tasks were locked.
+   */
+  void tasksPrefetched(List<LockedExternalTaskDto> lockedTasks);
+
+}
@@ -16,16 +16,36 @@
  */
 package org.camunda.bpm.grpc.client.topic.impl;
 
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import org.camunda.bpm.client.impl.EngineClient;
+import org.camunda.bpm.client.impl.EngineClientException;
 import org.camunda.bpm.client.task.ExternalTask;
 import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.client.task.ExternalTaskService;
 import org.camunda.bpm.client.task.impl.ExternalTaskImpl;
 import org.camunda.bpm.client.topic.TopicSubscription;
 import org.camunda.bpm.client.topic.impl.TopicSubscriptionImpl;
@@ -33,24 +53,71 @@ import org.camunda.bpm.client.topic.impl.TopicSubscriptionManager;
 import org.camunda.bpm.client.topic.impl.dto.TopicRequestDto;
 import org.camunda.bpm.client.variable.impl.TypedValueField;
 import org.camunda.bpm.client.variable.impl.TypedValues;
+import org.camunda.bpm.grpc.CompleteRequest;
+import org.camunda.bpm.grpc.CompleteResult;
 import org.camunda.bpm.grpc.FetchAndLockRequest;
 import org.camunda.bpm.grpc.FetchAndLockRequest.FetchExternalTaskTopic;
 import org.camunda.bpm.grpc.FetchAndLockResponse;
+import org.camunda.bpm.grpc.LockedExternalTaskDto;
 import org.camunda.bpm.grpc.TypedValueFieldDto;
+import org.camunda.bpm.grpc.ValueEncoding;
+import org.camunda.bpm.grpc.client.AsyncExternalTaskHandler;
+import org.camunda.bpm.grpc.client.BatchExternalTaskHandler;
+import org.camunda.bpm.grpc.client.ExternalTaskOutcome;
+import org.camunda.bpm.grpc.client.ExternalTaskOutcome.Complete;
 import org.camunda.bpm.grpc.client.impl.EngineClientGrpc;
+import org.camunda.bpm.grpc.client.impl.LazyTypedValueField;
+import org.camunda.bpm.grpc.client.impl.TaskPrefetcher;
+import org.camunda.bpm.grpc.client.impl.VirtualThreads;
 import org.camunda.bpm.grpc.core.VariableUtils;
 
 import io.grpc.stub.StreamObserver;
 
-public class TopicSubscriptionManagerGrpc extends TopicSubscriptionManager {
+public class TopicSubscriptionManagerGrpc extends TopicSubscriptionManager implements TaskPrefetcher {
 
   private StreamObserver<FetchAndLockRequest> requestObserver;
 
-  private Semaphore semaphore;
+  /*
+   * Credit based flow control: the server pushes as many tasks as credits
+   * were granted to it, the client grants new credits whenever handler slots
+   * (up to maxTasks) become free. Completing a task can hand its slot over
+   * to a task locked along with the completion. Grants are numbered, the
+   * server echoes the latest grant it applied, so revoking credits leaves the
+   * grants alone it has not seen yet.
+   */
+  private final ReentrantLock creditLock = new ReentrantLock();
+  private final Condition creditsChanged = creditLock.newCondition();
+  private int grantedCredits;
+  private long grantSequence;
+  private final NavigableMap<Long, Integer> unappliedGrants = new TreeMap<>();
+  private int tasksInFlight;
+  private int reservedCredits;
+  private boolean subscriptionsChanged;
+
+  /*
+   * Handlers are executed apart from the gRPC callback threads, so a slow
+   * handler neither blocks the fetch and lock stream nor other calls on the
+   * channel. The credits bound the tasks waiting for a handler thread to
+   * maxTasks. With virtual threads every task gets a thread of its own, the
+   * handler permits cap the handlers running at a time to maxTasks as well.
+   */
+  private Executor handlerExecutor;
+  private int handlerThreads;
+  private boolean useVirtualThreads;
+  private volatile ExecutorService ownHandlerExecutor;
+  private volatile Semaphore handlerPermits;
+
+  /*
+   * Tasks of topics with a batch handler wait in the open batch of their
+   * topic, keeping their slot, until it is full or its wait time passed. The
+   * scheduler flushes batches and bounds the wait for asynchronous handlers,
+   * it is guarded by the open batches.
+   */
+  private final Map<String, TaskBatch> openBatches = new HashMap<>();
+  private ScheduledExecutorService scheduler;
 
   public TopicSubscriptionManagerGrpc(EngineClient engineClient, TypedValues typedValues, long clientLockDuration) {
     super(engineClient, typedValues, clientLockDuration);
-    this.semaphore = new Semaphore(0);
   }
 
   @Override
@@ -59,8 +126,38 @@ public class TopicSubscriptionManagerGrpc extends TopicSubscriptionManager {
     requestObserver.onCompleted();
   }
 
+  /**
+   * @param handlerExecutor
+   *          executes the handlers, is not shut down by the client
+   */
+  public void setHandlerExecutor(Executor handlerExecutor) {
+    this.handlerExecutor = handlerExecutor;
+  }
+
+  /**
+   * @param handlerThreads
+   *          number of threads of the client's own handler pool, defaults to
+   *          maxTasks if not positive
+   */
+  public void setHandlerThreads(int handlerThreads) {
+    this.handlerThreads = handlerThreads;
+  }
+
+  /**
+   * @param useVirtualThreads
+   *          whether the client's own handler executor runs each handler on a
+   *          virtual thread, falls back to a pool of platform threads on JVMs
+   *          without virtual threads
+   */
+  public void setUseVirtualThreads(boolean useVirtualThreads) {
+    this.useVirtualThreads = useVirtualThreads;
+  }
+
   public synchronized void start() {
     if (isRunning.compareAndSet(false, true)) {
+      if (handlerExecutor == null) {
+        ownHandlerExecutor = useVirtualThreads ? createVirtualThreadHandlerExecutor() : createHandlerExecutor();
+      }
       prepareTopics();
       initRequestObserver();
       thread = new Thread(this, TopicSubscriptionManagerGrpc.class.getSimpleName());
@@ -69,25 +166,197 @@ public class TopicSubscriptionManagerGrpc extends TopicSubscriptionManager {
   }
 
   @Override
-  protected void acquire() {
-    if (!taskTopicRequests.isEmpty()) {
-      requestObserver.onNext(buildRequest());
+  public synchronized void stop() {
+    if (isRunning.compareAndSet(true, false)) {
+      signalCreditsChanged();
       try {
-        semaphore.acquire();
+        thread.join();
       } catch (InterruptedException e) {
-        LOG.logInfo("NA", "Client was stopped while waiting on answer from server", e);
+        LOG.logError("NA", "Client was interrupted while stopping", e);
+        Thread.currentThread().interrupt();
+      }
+      if (ownHandlerExecutor != null) {
+        // handlers already running or waiting are still executed
+        ownHandlerExecutor.shutdown();
+        ownHandlerExecutor = null;
+        handlerPermits = null;
+      }
+      synchronized (openBatches) {
+        if (scheduler != null) {
+          // open batches are still flushed, their tasks are unlocked
+          scheduler.shutdown();
+          scheduler = null;
+        }
+      }
+      ((EngineClientGrpc) engineClient).closeOutcomeStream();
+    }
+  }
+
+  protected ExecutorService createHandlerExecutor() {
+    int threads = handlerThreads > 0 ? handlerThreads : ((EngineClientGrpc) engineClient).getMaxTasks();
+    AtomicInteger threadNumber = new AtomicInteger();
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, TopicSubscriptionManagerGrpc.class.getSimpleName() + "-handler-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    return Executors.newFixedThreadPool(Math.max(1, threads), threadFactory);
+  }
+
+  protected ExecutorService createVirtualThreadHandlerExecutor() {
+    try {
+      ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor(TopicSubscriptionManagerGrpc.class.getSimpleName() + "-handler-");
+      // the credits are granted from maxTasks as well
+      handlerPermits = new Semaphore(Math.max(1, ((EngineClientGrpc) engineClient).getMaxTasks()));
+      return executor;
+    } catch (ReflectiveOperationException e) {
+      LOG.logInfo("NA", "Virtual threads are not supported by this JVM, executing handlers in a thread pool", e);
+      return createHandlerExecutor();
+    }
+  }
+
+  protected Executor getHandlerExecutor() {
+    return handlerExecutor != null ? handlerExecutor : ownHandlerExecutor;
+  }
+
+  @Override
+  protected void acquire() {
+    FetchAndLockRequest request;
+    creditLock.lock();
+    try {
+      while (isRunning.get() && !subscriptionsChanged && (taskTopicRequests.isEmpty() || getFreeCredits() <= 0)) {
+        creditsChanged.await();
+      }
+      if (!isRunning.get()) {
+        return;
+      }
+      int credits = taskTopicRequests.isEmpty() ? 0 : Math.max(0, getFreeCredits());
+      grantedCredits += credits;
+      grantSequence++;
+      if (credits > 0) {
+        unappliedGrants.put(grantSequence, credits);
+      }
+      subscriptionsChanged = false;
+      request = buildRequest(credits, grantSequence);
+    } catch (InterruptedException e) {
+      LOG.logInfo("NA", "Client was stopped while waiting for free handler slots", e);
+      return;
+    } finally {
+      creditLock.unlock();
+    }
+    requestObserver.onNext(request);
+  }
+
+  protected int getFreeCredits() {
+    return ((EngineClientGrpc) engineClient).getMaxTasks() - tasksInFlight - grantedCredits - reservedCredits;
+  }
+
+  protected void tasksReceived(int tasks, long appliedGrantSequence) {
+    creditLock.lock();
+    try {
+      unappliedGrants.headMap(appliedGrantSequence, true).clear();
+      grantedCredits = Math.max(0, grantedCredits - tasks);
+      tasksInFlight += tasks;
+    } finally {
+      creditLock.unlock();
+    }
+  }
+
+  protected void singleTaskReceived() {
+    creditLock.lock();
+    try {
+      // the server answered the oldest request with one task and ignored the
+      // credits it granted
+      Entry<Long, Integer> answeredGrant = unappliedGrants.pollFirstEntry();
+      grantedCredits = Math.max(0, grantedCredits - (answeredGrant != null ? answeredGrant.getValue() : 1));
+      tasksInFlight++;
+      creditsChanged.signalAll();
+    } finally {
+      creditLock.unlock();
+    }
+  }
+
+  @Override
+  public FetchAndLockRequest reserve() {
+    creditLock.lock();
+    try {
+      // the completed task is still in flight, its slot is handed over
+      if (!isRunning.get() || taskTopicRequests.isEmpty() || tasksInFlight <= 0 || getFreeCredits() + 1 <= 0) {
+        return null;
       }
+      reservedCredits++;
+      return buildPrefetchRequest();
+    } finally {
+      creditLock.unlock();
+    }
+  }
+
+  @Override
+  public void tasksPrefetched(List<LockedExternalTaskDto> lockedTasks) {
+    creditLock.lock();
+    try {
+      reservedCredits--;
+      tasksInFlight += lockedTasks.size();
+      creditsChanged.signalAll();
+    } finally {
+      creditLock.unlock();
+    }
+    handleLockedTasks(lockedTasks);
+  }
+
+  protected void creditsRevoked(long revokedGrantSequence) {
+    creditLock.lock();
+    try {
+      // the server answered a request without tasks and forgot the credits of
+      // the grants it applied so far, grants sent afterwards are still valid;
+      // issue a new request to pick up tasks the server was not signaled about
+      unappliedGrants.headMap(revokedGrantSequence, true).clear();
+      grantedCredits = unappliedGrants.values().stream().mapToInt(Integer::intValue).sum();
+      subscriptionsChanged = true;
+      creditsChanged.signalAll();
+    } finally {
+      creditLock.unlock();
+    }
+  }
+
+  protected void taskDone() {
+    creditLock.lock();
+    try {
+      tasksInFlight--;
+      creditsChanged.signalAll();
+    } finally {
+      creditLock.unlock();
+    }
+  }
+
+  protected void signalCreditsChanged() {
+    creditLock.lock();
+    try {
+      creditsChanged.signalAll();
+    } finally {
+      creditLock.unlock();
     }
   }
 
   protected void subscribe(TopicSubscription subscription) {
     super.subscribe(subscription);
-    prepareTopics();
+    subscriptionsChanged();
   }
 
   protected void unsubscribe(TopicSubscriptionImpl subscription) {
     super.unsubscribe(subscription);
-    prepareTopics();
+    subscriptionsChanged();
+  }
+
+  protected void subscriptionsChanged() {
+    creditLock.lock();
+    try {
+      prepareTopics();
+      subscriptionsChanged = true;
+      creditsChanged.signalAll();
+    } finally {
+      creditLock.unlock();
+    }
   }
 
   protected void prepareTopics() {
@@ -101,19 +370,22 @@ public class TopicSubscriptionManagerGrpc extends TopicSubscriptionManager {
 
       @Override
       public void onNext(FetchAndLockResponse reply) {
-        ExternalTaskHandler taskHandler = externalTaskHandlers.get(reply.getTopicName());
-
-        if (taskHandler != null) {
-          try {
-            handleExternalTask(to(reply), taskHandler);
-          } catch (Throwable t) {
-            LOG.exceptionWhileExecutingExternalTaskHandler(reply.getTopicName(), t);
-          }
-        } else {
-          LOG.taskHandlerIsNull(reply.getTopicName());
+        if (reply.getValueEncoding() == ValueEncoding.COMPACT) {
+          // the server understands the compact encoding
+          ((EngineClientGrpc) engineClient).setValueEncoding(ValueEncoding.COMPACT);
         }
-
-        semaphore.release();
+        if (reply.getTasksCount() == 0 && !reply.getId().isEmpty()) {
+          // a server not supporting maxTasks answers with a single task
+          singleTaskReceived();
+          handleLockedTasks(Collections.singletonList(toLockedTask(reply)));
+          return;
+        }
+        if (reply.getTasksCount() == 0) {
+          creditsRevoked(reply.getGrantSequence());
+          return;
+        }
+        tasksReceived(reply.getTasksCount(), reply.getGrantSequence());
+        handleLockedTasks(reply.getTasksList());
       }
 
       @Override
@@ -128,11 +400,268 @@ public class TopicSubscriptionManagerGrpc extends TopicSubscriptionManager {
     });
   }
 
-  protected FetchAndLockRequest buildRequest() {
+  protected void handleLockedTasks(List<LockedExternalTaskDto> lockedTasks) {
+    Executor executor = getHandlerExecutor();
+    for (LockedExternalTaskDto lockedTask : lockedTasks) {
+      try {
+        if (executor == null) {
+          throw new RejectedExecutionException("Client is stopped");
+        }
+        executor.execute(() -> executeHandler(lockedTask));
+      } catch (RejectedExecutionException e) {
+        LOG.logError("NA", "Handler execution rejected for task " + lockedTask.getId() + ", unlocking it", e);
+        unlockRejected(lockedTask);
+        taskDone();
+      }
+    }
+  }
+
+  protected void executeHandler(LockedExternalTaskDto lockedTask) {
+    Semaphore permits = handlerPermits;
+    CompletionStage<?> pendingTask = null;
+    try {
+      if (permits != null) {
+        // blocking is cheap on a virtual thread
+        permits.acquireUninterruptibly();
+      }
+      try {
+        pendingTask = handleLockedTask(lockedTask);
+      } finally {
+        if (permits != null) {
+          permits.release();
+        }
+      }
+    } finally {
+      if (pendingTask == null) {
+        taskDone();
+      } else {
+        // the task stays in flight without holding the thread
+        pendingTask.whenComplete((result, throwable) -> taskDone());
+      }
+    }
+  }
+
+  protected void unlockRejected(LockedExternalTaskDto lockedTask) {
+    try {
+      engineClient.unlock(lockedTask.getId());
+    } catch (EngineClientException e) {
+      LOG.logError("NA", "Could not unlock task " + lockedTask.getId() + ", it is available again once its lock expired", e);
+    }
+  }
+
+  /**
+   * @return the stage completed once an asynchronous handler is done with the
+   *         task, <code>null</code> if the task is done already
+   */
+  protected CompletionStage<?> handleLockedTask(LockedExternalTaskDto lockedTask) {
+    ExternalTaskHandler taskHandler = externalTaskHandlers.get(lockedTask.getTopicName());
+
+    if (taskHandler != null) {
+      try {
+        ExternalTaskImpl externalTask = (ExternalTaskImpl) to(lockedTask);
+        if (lockedTask.getVariableTypesCount() > 0) {
+          externalTask.setVariables(toLazyTypedValueFields(lockedTask));
+        }
+        if (taskHandler instanceof BatchExternalTaskHandler) {
+          return addToBatch(externalTask, (BatchExternalTaskHandler) taskHandler);
+        }
+        if (taskHandler instanceof AsyncExternalTaskHandler) {
+          return handleExternalTaskAsync(externalTask, (AsyncExternalTaskHandler) taskHandler);
+        }
+        handleExternalTask(externalTask, taskHandler);
+      } catch (Throwable t) {
+        LOG.exceptionWhileExecutingExternalTaskHandler(lockedTask.getTopicName(), t);
+      }
+    } else {
+      LOG.taskHandlerIsNull(lockedTask.getTopicName());
+    }
+    return null;
+  }
+
+  protected CompletionStage<?> handleExternalTaskAsync(ExternalTaskImpl externalTask, AsyncExternalTaskHandler taskHandler) {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    // the task and the service are prepared like for synchronous handlers
+    handleExternalTask(externalTask, (task, externalTaskService) -> {
+      CompletionStage<ExternalTaskOutcome> outcome;
+      try {
+        outcome = taskHandler.executeAsync(task);
+      } catch (RuntimeException e) {
+        done.complete(null);
+        throw e;
+      }
+      if (outcome == null) {
+        done.complete(null);
+        return;
+      }
+      // a stage that never completes must not keep the slot of its task
+      // forever, the slot is released once the lock of the task expired
+      ScheduledFuture<?> timeout = getScheduler().schedule(() -> {
+        if (done.complete(null)) {
+          LOG.logError("NA", "Asynchronous handler did not finish task " + task.getId() + " before its lock expired, releasing its slot", null);
+        }
+      }, getRemainingLockDuration(task), TimeUnit.MILLISECONDS);
+      outcome.whenComplete((result, throwable) -> {
+        timeout.cancel(false);
+        try {
+          if (throwable != null) {
+            LOG.exceptionWhileExecutingExternalTaskHandler(task.getTopicName(), throwable);
+          } else if (result != null) {
+            result.apply(task, externalTaskService);
+          }
+        } catch (Throwable t) {
+          LOG.exceptionWhileExecutingExternalTaskHandler(task.getTopicName(), t);
+        } finally {
+          done.complete(null);
+        }
+      });
+    });
+    return done;
+  }
+
+  protected long getRemainingLockDuration(ExternalTask task) {
+    if (task.getLockExpirationTime() == null) {
+      return clientLockDuration;
+    }
+    return Math.max(0, task.getLockExpirationTime().getTime() - System.currentTimeMillis());
+  }
+
+  protected CompletionStage<?> addToBatch(ExternalTaskImpl externalTask, BatchExternalTaskHandler taskHandler) {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    // the task and the service are prepared like for synchronous handlers
+    handleExternalTask(externalTask, (task, externalTaskService) -> {
+      TaskBatch fullBatch = null;
+      synchronized (openBatches) {
+        TaskBatch batch = openBatches.get(task.getTopicName());
+        if (batch == null) {
+          batch = new TaskBatch(task.getTopicName(), taskHandler, externalTaskService);
+          openBatches.put(task.getTopicName(), batch);
+          TaskBatch newBatch = batch;
+          batch.flushTimer = getScheduler().schedule(() -> flushBatch(newBatch), taskHandler.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+        }
+        batch.tasks.add(task);
+        batch.done.add(done);
+        if (batch.tasks.size() >= taskHandler.getMaxBatchSize()) {
+          openBatches.remove(task.getTopicName());
+          batch.flushTimer.cancel(false);
+          fullBatch = batch;
+        }
+      }
+      if (fullBatch != null) {
+        // already on a handler thread
+        executeBatch(fullBatch);
+      }
+    });
+    return done;
+  }
+
+  protected ScheduledExecutorService getScheduler() {
+    synchronized (openBatches) {
+      if (scheduler == null) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, TopicSubscriptionManagerGrpc.class.getSimpleName() + "-scheduler");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      return scheduler;
+    }
+  }
+
+  protected void flushBatch(TaskBatch batch) {
+    synchronized (openBatches) {
+      if (openBatches.get(batch.topicName) != batch) {
+        // flushed as it was full
+        return;
+      }
+      openBatches.remove(batch.topicName);
+    }
+    Executor executor = getHandlerExecutor();
+    try {
+      if (executor == null) {
+        throw new RejectedExecutionException("Client is stopped");
+      }
+      executor.execute(() -> executeBatch(batch));
+    } catch (RejectedExecutionException e) {
+      LOG.logError("NA", "Handler execution rejected for a batch of topic " + batch.topicName + ", unlocking its tasks", e);
+      for (ExternalTask task : batch.tasks) {
+        try {
+          engineClient.unlock(task.getId());
+        } catch (EngineClientException unlockException) {
+          LOG.logError("NA", "Could not unlock task " + task.getId() + ", it is available again once its lock expired", unlockException);
+        }
+      }
+      batch.done.forEach(done -> done.complete(null));
+    }
+  }
+
+  protected void executeBatch(TaskBatch batch) {
+    try {
+      List<ExternalTaskOutcome> outcomes = batch.handler.executeBatch(Collections.unmodifiableList(batch.tasks));
+      if (outcomes == null || outcomes.size() != batch.tasks.size()) {
+        throw new IllegalStateException("Batch handler returned " + (outcomes == null ? 0 : outcomes.size()) + " outcomes for " + batch.tasks.size() + " tasks");
+      }
+      reportOutcomes(batch, outcomes);
+    } catch (Throwable t) {
+      LOG.exceptionWhileExecutingExternalTaskHandler(batch.topicName, t);
+    } finally {
+      batch.done.forEach(done -> done.complete(null));
+    }
+  }
+
+  protected void reportOutcomes(TaskBatch batch, List<ExternalTaskOutcome> outcomes) {
+    EngineClientGrpc engineClientGrpc = (EngineClientGrpc) engineClient;
+    List<CompleteRequest> completions = new ArrayList<>();
+    for (int i = 0; i < batch.tasks.size(); i++) {
+      ExternalTask task = batch.tasks.get(i);
+      ExternalTaskOutcome outcome = outcomes.get(i);
+      try {
+        if (outcome instanceof Complete && !EngineClientGrpc.containsFiles(((Complete) outcome).getVariables())
+            && !EngineClientGrpc.containsFiles(((Complete) outcome).getLocalVariables())) {
+          Complete complete = (Complete) outcome;
+          completions.add(engineClientGrpc.createCompleteRequest(task.getId(), complete.getVariables(), complete.getLocalVariables()));
+        } else if (outcome != null) {
+          // file uploads, failures and BPMN errors are reported one by one
+          outcome.apply(task, batch.service);
+        }
+      } catch (Throwable t) {
+        LOG.exceptionWhileExecutingExternalTaskHandler(batch.topicName, t);
+      }
+    }
+    if (!completions.isEmpty()) {
+      for (CompleteResult result : engineClientGrpc.completeBatch(completions)) {
+        if (result.getStatus() >= HttpURLConnection.HTTP_MULT_CHOICE) {
+          LOG.logError("NA", "Could not complete task " + result.getId() + " of a batch (status " + result.getStatus() + "): " + result.getErrorMessage(), null);
+        }
+      }
+    }
+  }
+
+  protected FetchAndLockRequest buildRequest(int credits, long grantSequence) {
+    FetchAndLockRequest.Builder request = createRequestBuilder()
+        .setMaxTasks(((EngineClientGrpc) engineClient).getMaxTasks())
+        .setCreditBased(true)
+        .setCredits(credits)
+        .setGrantSequence(grantSequence);
+    Long asyncResponseTimeout = ((EngineClientGrpc) engineClient).getAsyncResponseTimeout();
+    if (asyncResponseTimeout != null) {
+      request.setAsyncResponseTimeout(asyncResponseTimeout);
+    }
+    return request.build();
+  }
+
+  protected FetchAndLockRequest buildPrefetchRequest() {
+    return createRequestBuilder()
+        .setMaxTasks(1)
+        .build();
+  }
+
+  protected FetchAndLockRequest.Builder createRequestBuilder() {
     return FetchAndLockRequest.newBuilder()
         .setWorkerId(engineClient.getWorkerId())
         .setUsePriority(engineClient.isUsePriority())
-        .addAllTopic(from(taskTopicRequests)).build();
+        .setLazyVariables(((EngineClientGrpc) engineClient).isLazyVariables())
+        .setValueEncoding(ValueEncoding.COMPACT)
+        .addAllTopic(from(taskTopicRequests));
   }
 
   protected static Iterable<? extends FetchExternalTaskTopic> from(List<TopicRequestDto> taskTopicRequests) {
@@ -174,7 +703,7 @@ public class TopicSubscriptionManagerGrpc extends TopicSubscriptionManager {
     return topicRequestDto.build();
   }
 
-  protected static ExternalTask to(FetchAndLockResponse response) {
+  protected static ExternalTask to(LockedExternalTaskDto response) {
     ExternalTaskImpl task = new ExternalTaskImpl();
     task.setActivityId(response.getActivityId());
     task.setActivityInstanceId(response.getActivityInstanceId());
@@ -198,16 +727,61 @@ public class TopicSubscriptionManagerGrpc extends TopicSubscriptionManager {
     return task;
   }
 
+  protected static LockedExternalTaskDto toLockedTask(FetchAndLockResponse response) {
+    LockedExternalTaskDto.Builder task = LockedExternalTaskDto.newBuilder()
+        .setId(response.getId())
+        .setWorkerId(response.getWorkerId())
+        .setTopicName(response.getTopicName())
+        .setActivityId(response.getActivityId())
+        .setActivityInstanceId(response.getActivityInstanceId())
+        .setErrorMessage(response.getErrorMessage())
+        .setErrorDetails(response.getErrorDetails())
+        .setExecutionId(response.getExecutionId())
+        .setProcessDefinitionKey(response.getProcessDefinitionKey())
+        .setProcessDefinitionVersionTag(response.getProcessDefinitionVersionTag())
+        .setProcessInstanceId(response.getProcessInstanceId())
+        .setRetries(response.getRetries())
+        .setTenantId(response.getTenantId())
+        .setPriority(response.getPriority())
+        .setBusinessKey(response.getBusinessKey())
+        .putAllExtensionProperties(response.getExtensionPropertiesMap())
+        .setProcessDefinitionId(response.getProcessDefinitionId())
+        .putAllVariables(response.getVariablesMap());
+    if (response.hasLockExpirationTime()) {
+      task.setLockExpirationTime(response.getLockExpirationTime());
+    }
+    return task.build();
+  }
+
   protected static Map<String, TypedValueField> toTypedValueFields(Map<String, TypedValueFieldDto> variablesMap) {
+    return EngineClientGrpc.fromTypedValueFields(variablesMap);
+  }
+
+  protected Map<String, TypedValueField> toLazyTypedValueFields(LockedExternalTaskDto lockedTask) {
+    boolean localVariables = subscriptions.stream()
+        .anyMatch(subscription -> subscription.getTopicName().equals(lockedTask.getTopicName()) && subscription.isLocalVariables());
     Map<String, TypedValueField> map = new HashMap<>();
-    for (Entry<String, TypedValueFieldDto> entry : variablesMap.entrySet()) {
-      TypedValueField field = new TypedValueField();
-      field.setType(entry.getValue().getType());
-      field.setValue(VariableUtils.unpack(entry.getValue().getValue()));
-      field.setValueInfo(VariableUtils.unpackMap(entry.getValue().getValueInfoMap()));
-      map.put(entry.getKey(), field);
+    for (Entry<String, String> entry : lockedTask.getVariableTypesMap().entrySet()) {
+      map.put(entry.getKey(), new LazyTypedValueField((EngineClientGrpc) engineClient, lockedTask.getId(), entry.getKey(), entry.getValue(),
+          localVariables));
     }
     return map;
   }
 
-}
\ No newline at end of file
+  protected static class TaskBatch {
+
+    private final String topicName;
+    private final BatchExternalTaskHandler handler;
+    private final ExternalTaskService service;
+    private final List<ExternalTask> tasks = new ArrayList<>();
+    private final List<CompletableFuture<Void>> done = new ArrayList<>();
+    private ScheduledFuture<?> flushTimer;
+
+    protected TaskBatch(String topicName, BatchExternalTaskHandler handler, ExternalTaskService service) {
+      this.topicName = topicName;
+      this.handler = handler;
+      this.service = service;
+    }
+  }
+
+}
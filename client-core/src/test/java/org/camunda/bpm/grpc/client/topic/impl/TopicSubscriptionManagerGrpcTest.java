@@ -0,0 +1,237 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.client.topic.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.camunda.bpm.client.topic.impl.TopicSubscriptionImpl;
+import org.camunda.bpm.grpc.FetchAndLockRequest;
+import org.camunda.bpm.grpc.FetchAndLockResponse;
+import org.camunda.bpm.grpc.LockedExternalTaskDto;
+import org.camunda.bpm.grpc.client.impl.EngineClientGrpc;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.grpc.stub.StreamObserver;
+
+public class TopicSubscriptionManagerGrpcTest {
+
+  private static final int MAX_TASKS = 3;
+
+  private FakeEngineClient engineClient;
+  private TestTopicSubscriptionManager manager;
+
+  @BeforeEach
+  public void createManager() {
+    engineClient = new FakeEngineClient();
+    manager = new TestTopicSubscriptionManager(engineClient);
+    // handlers are not executed, the tests account for the tasks themselves
+    manager.setHandlerExecutor(runnable -> { });
+    manager.setRunning(true);
+    manager.initRequestObserver();
+    manager.subscribe(new TopicSubscriptionImpl("topic", 1000L, (task, service) -> { }, manager, null, null));
+  }
+
+  @AfterEach
+  public void closeEngineClient() {
+    manager.setRunning(false);
+    engineClient.close();
+  }
+
+  @Test
+  public void shouldGrantAllHandlerSlots() {
+    manager.acquire();
+
+    FetchAndLockRequest request = engineClient.getLastRequest();
+    assertEquals(MAX_TASKS, request.getCredits());
+    assertEquals(1, request.getGrantSequence());
+    assertEquals(0, manager.getFreeCredits());
+  }
+
+  @Test
+  public void shouldGrantSlotOfDoneTask() {
+    manager.acquire();
+    manager.tasksReceived(MAX_TASKS, 1);
+    assertEquals(0, manager.getFreeCredits());
+
+    manager.taskDone();
+    assertEquals(1, manager.getFreeCredits());
+
+    manager.acquire();
+
+    FetchAndLockRequest request = engineClient.getLastRequest();
+    assertEquals(1, request.getCredits());
+    assertEquals(2, request.getGrantSequence());
+    assertEquals(0, manager.getFreeCredits());
+  }
+
+  @Test
+  public void shouldKeepCreditsOfTasksNotReceivedYet() {
+    manager.acquire();
+    manager.tasksReceived(1, 1);
+
+    // two credits are still granted, one task is in flight
+    assertEquals(0, manager.getFreeCredits());
+
+    manager.taskDone();
+    assertEquals(1, manager.getFreeCredits());
+  }
+
+  @Test
+  public void shouldHandSlotOfCompletedTaskOverToPrefetchedTask() {
+    manager.acquire();
+    manager.tasksReceived(MAX_TASKS, 1);
+
+    FetchAndLockRequest prefetchRequest = manager.reserve();
+
+    assertNotNull(prefetchRequest);
+    assertEquals(1, prefetchRequest.getMaxTasks());
+    assertEquals(-1, manager.getFreeCredits());
+
+    manager.tasksPrefetched(Collections.singletonList(LockedExternalTaskDto.newBuilder().setId("prefetched").build()));
+    // the completed task is done after its completion was answered
+    manager.taskDone();
+
+    assertEquals(0, manager.getFreeCredits());
+  }
+
+  @Test
+  public void shouldReleaseReservedSlotIfNothingWasPrefetched() {
+    manager.acquire();
+    manager.tasksReceived(MAX_TASKS, 1);
+
+    manager.reserve();
+    manager.tasksPrefetched(Collections.emptyList());
+    manager.taskDone();
+
+    assertEquals(1, manager.getFreeCredits());
+  }
+
+  @Test
+  public void shouldNotReserveWithoutTaskInFlight() {
+    assertNull(manager.reserve());
+    assertEquals(MAX_TASKS, manager.getFreeCredits());
+  }
+
+  @Test
+  public void shouldFreeAppliedGrantsOnRevoke() {
+    manager.acquire();
+
+    engineClient.respond(FetchAndLockResponse.newBuilder().setGrantSequence(1).build());
+
+    assertEquals(MAX_TASKS, manager.getFreeCredits());
+
+    // a new request picks up tasks the server was not signaled about
+    manager.acquire();
+
+    FetchAndLockRequest request = engineClient.getLastRequest();
+    assertEquals(MAX_TASKS, request.getCredits());
+    assertEquals(2, request.getGrantSequence());
+  }
+
+  @Test
+  public void shouldAccountSingleTaskOfServerWithoutCredits() {
+    manager.acquire();
+
+    // a server not supporting credits answers the request with one task
+    engineClient.respond(FetchAndLockResponse.newBuilder().setId("single").setTopicName("topic").build());
+
+    // the grant is answered, the task is in flight
+    assertEquals(MAX_TASKS - 1, manager.getFreeCredits());
+
+    manager.taskDone();
+    assertEquals(MAX_TASKS, manager.getFreeCredits());
+  }
+
+  @Test
+  public void shouldKeepGrantsNotAppliedByServerOnRevoke() {
+    manager.acquire();
+    manager.tasksReceived(1, 1);
+    manager.taskDone();
+    manager.acquire();
+
+    // the server revokes the rest of the first grant before it saw the second
+    engineClient.respond(FetchAndLockResponse.newBuilder().setGrantSequence(1).build());
+
+    assertEquals(MAX_TASKS - 1, manager.getFreeCredits());
+  }
+
+  protected static class TestTopicSubscriptionManager extends TopicSubscriptionManagerGrpc {
+
+    public TestTopicSubscriptionManager(EngineClientGrpc engineClient) {
+      super(engineClient, null, 1000L);
+    }
+
+    public void setRunning(boolean running) {
+      isRunning.set(running);
+    }
+  }
+
+  protected static class FakeEngineClient extends EngineClientGrpc {
+
+    protected final List<FetchAndLockRequest> requests = new ArrayList<>();
+    protected StreamObserver<FetchAndLockResponse> responseObserver;
+
+    public FakeEngineClient() {
+      super("worker", MAX_TASKS, null, "localhost:1");
+    }
+
+    @Override
+    public StreamObserver<FetchAndLockRequest> fetchAndLock(StreamObserver<FetchAndLockResponse> responseObserver) {
+      this.responseObserver = responseObserver;
+      return new StreamObserver<FetchAndLockRequest>() {
+
+        @Override
+        public void onNext(FetchAndLockRequest request) {
+          requests.add(request);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+      };
+    }
+
+    @Override
+    public void unlock(String taskId) {
+    }
+
+    public FetchAndLockRequest getLastRequest() {
+      return requests.get(requests.size() - 1);
+    }
+
+    public void respond(FetchAndLockResponse response) {
+      responseObserver.onNext(response);
+    }
+
+    public void close() {
+      channel.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.core;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.camunda.bpm.engine.variable.value.SerializableValue;
+import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.camunda.bpm.grpc.ListValue;
+import org.camunda.bpm.grpc.MapValue;
+import org.camunda.bpm.grpc.TypedValueFieldDto;
+import org.camunda.bpm.grpc.TypedValueFieldDto.Builder;
+import org.camunda.bpm.grpc.Value;
+import org.camunda.bpm.grpc.ValueEncoding;
+import org.camunda.bpm.grpc.ValueList;
+import org.camunda.bpm.grpc.ValueMap;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.DoubleValue;
+import com.google.protobuf.Empty;
+import com.google.protobuf.FloatValue;
+import com.google.protobuf.Int32Value;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.Message;
+import com.google.protobuf.StringValue;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.WireFormat;
+
+public class VariableUtils {
+
+  public static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+  // PACK OBJECT TO PROTO
+
+  private static final Map<Class<?>, Function<Object, Message>> PRIMITIVES;
+
+  static {
+    Map<Class<?>, Function<Object, Message>> tempMap = new HashMap<>();
+    tempMap.put(String.class, obj -> StringValue.of((String) obj));
+    tempMap.put(byte[].class, obj -> BytesValue.of(ByteString.copyFrom((byte[]) obj)));
+    tempMap.put(Integer.class, obj -> Int32Value.of((Integer) obj));
+    tempMap.put(int.class, obj -> Int32Value.of((int) obj));
+    tempMap.put(Short.class, obj -> Int32Value.of((Short) obj));
+    tempMap.put(short.class, obj -> Int32Value.of((short) obj));
+    tempMap.put(Double.class, obj -> DoubleValue.of((Double) obj));
+    tempMap.put(double.class, obj -> DoubleValue.of((double) obj));
+    tempMap.put(Float.class, obj -> FloatValue.of((Float) obj));
+    tempMap.put(float.class, obj -> FloatValue.of((float) obj));
+    tempMap.put(Long.class, obj -> Int64Value.of((Long) obj));
+    tempMap.put(long.class, obj -> Int64Value.of((long) obj));
+    tempMap.put(Boolean.class, obj -> BoolValue.of((Boolean) obj));
+    tempMap.put(boolean.class, obj -> BoolValue.of((boolean) obj));
+    tempMap.put(Date.class, obj -> StringValue.of(formatDate((Date) obj)));
+    PRIMITIVES = Collections.unmodifiableMap(tempMap);
+  }
+
+  public static Map<String, TypedValueFieldDto> toTypedValueFields(VariableMap variables) {
+    return toTypedValueFields(variables, ValueEncoding.ANY);
+  }
+
+  public static Map<String, TypedValueFieldDto> toTypedValueFields(VariableMap variables, ValueEncoding encoding) {
+    return variables.keySet().stream().collect(Collectors.toMap(k -> k, k -> fromTypedValue(variables.getValueTyped(k), encoding)));
+  }
+
+  protected static TypedValueFieldDto fromTypedValue(TypedValue typedValue, ValueEncoding encoding) {
+    boolean compact = encoding == ValueEncoding.COMPACT;
+    Builder dto = TypedValueFieldDto.newBuilder();
+    ValueType type = typedValue.getType();
+    if (type != null) {
+      String typeName = type.getName();
+      dto.setType(typeName);
+      Map<String, Object> valueInfo = type.getValueInfo(typedValue);
+      if (compact) {
+        dto.putAllCompactValueInfo(packValueMap(valueInfo));
+      } else {
+        dto.putAllValueInfo(packMap(valueInfo));
+      }
+    }
+    if (typedValue instanceof FileValue) {
+      // do not set the value for FileValues since we don't want to send
+      // megabytes over the network without explicit request
+      if (compact) {
+        dto.setCompactValue(Value.getDefaultInstance());
+      }
+      return dto.build();
+    }
+    // always send serializable values serialized
+    Object value = typedValue instanceof SerializableValue ? ((SerializableValue) typedValue).getValueSerialized() : typedValue.getValue();
+    if (compact) {
+      dto.setCompactValue(packValue(value));
+    } else {
+      dto.setValue(pack(value));
+    }
+    return dto.build();
+  }
+
+  public static Any pack(Object obj) {
+    if (obj == null) {
+      Empty data = Empty.newBuilder().build();
+      return Any.pack(data);
+    }
+    if (PRIMITIVES.containsKey(obj.getClass())) {
+      return Any.pack(PRIMITIVES.get(obj.getClass()).apply(obj));
+    }
+    if (obj instanceof Map) {
+      return Any.pack(createMapValue((Map<?, ?>) obj));
+    }
+    if (obj instanceof List) {
+      return Any.pack(packList((List<?>) obj));
+    }
+    throw new IllegalArgumentException("Cannot transform value to proto object:" + obj);
+  }
+
+  public static Message packList(List<?> objList) {
+    ListValue.Builder builder = ListValue.newBuilder();
+    for (Object obj : objList) {
+      builder.addValues(pack(obj));
+    }
+    return builder.build();
+  }
+
+  public static Message createMapValue(Map<?, ?> objMap) {
+    return MapValue.newBuilder().putAllValues(packMap(objMap)).build();
+  }
+
+  public static Map<String, Any> packMap(Map<?, ?> objMap) {
+    return objMap.entrySet().stream().collect(Collectors.toMap(e -> String.valueOf(e.getKey()), e -> VariableUtils.pack(e.getValue())));
+  }
+
+  public static String formatDate(Date date) {
+    return DATETIME_FORMATTER.format(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+  }
+
+  // PACK OBJECT TO COMPACT VALUE
+
+  private static final Map<Class<?>, BiConsumer<Value.Builder, Object>> COMPACT_PRIMITIVES;
+
+  static {
+    Map<Class<?>, BiConsumer<Value.Builder, Object>> tempMap = new HashMap<>();
+    tempMap.put(String.class, (value, obj) -> value.setStringValue((String) obj));
+    tempMap.put(byte[].class, (value, obj) -> value.setBytesValue(ByteString.copyFrom((byte[]) obj)));
+    tempMap.put(Integer.class, (value, obj) -> value.setInt32Value((Integer) obj));
+    tempMap.put(int.class, (value, obj) -> value.setInt32Value((int) obj));
+    tempMap.put(Short.class, (value, obj) -> value.setInt32Value((Short) obj));
+    tempMap.put(short.class, (value, obj) -> value.setInt32Value((short) obj));
+    tempMap.put(Double.class, (value, obj) -> value.setDoubleValue((Double) obj));
+    tempMap.put(double.class, (value, obj) -> value.setDoubleValue((double) obj));
+    tempMap.put(Float.class, (value, obj) -> value.setFloatValue((Float) obj));
+    tempMap.put(float.class, (value, obj) -> value.setFloatValue((float) obj));
+    tempMap.put(Long.class, (value, obj) -> value.setInt64Value((Long) obj));
+    tempMap.put(long.class, (value, obj) -> value.setInt64Value((long) obj));
+    tempMap.put(Boolean.class, (value, obj) -> value.setBoolValue((Boolean) obj));
+    tempMap.put(boolean.class, (value, obj) -> value.setBoolValue((boolean) obj));
+    tempMap.put(Date.class, (value, obj) -> value.setTimestampValue(getTimestamp((Date) obj)));
+    COMPACT_PRIMITIVES = Collections.unmodifiableMap(tempMap);
+  }
+
+  public static Value packValue(Object obj) {
+    if (obj == null) {
+      return Value.getDefaultInstance();
+    }
+    Value.Builder value = Value.newBuilder();
+    BiConsumer<Value.Builder, Object> primitive = COMPACT_PRIMITIVES.get(obj.getClass());
+    if (primitive != null) {
+      primitive.accept(value, obj);
+    } else if (obj instanceof Map) {
+      value.setMapValue(ValueMap.newBuilder().putAllValues(packValueMap((Map<?, ?>) obj)));
+    } else if (obj instanceof List) {
+      ValueList.Builder list = ValueList.newBuilder();
+      for (Object element : (List<?>) obj) {
+        list.addValues(packValue(element));
+      }
+      value.setListValue(list);
+    } else {
+      throw new IllegalArgumentException("Cannot transform value to proto object:" + obj);
+    }
+    return value.build();
+  }
+
+  public static Map<String, Value> packValueMap(Map<?, ?> objMap) {
+    Map<String, Value> values = new HashMap<>();
+    for (Entry<?, ?> entry : objMap.entrySet()) {
+      values.put(String.valueOf(entry.getKey()), packValue(entry.getValue()));
+    }
+    return values;
+  }
+
+  public static Timestamp getTimestamp(Date date) {
+    return date == null ? null : Timestamp.newBuilder()
+        .setSeconds(date.getTime() / 1000)
+        .setNanos((int) ((date.getTime() % 1000) * 1000000))
+        .build();
+  }
+
+  // UNPACK PROTO TO OBJECT
+
+  /** reads a value from the serialized content of an Any */
+  @FunctionalInterface
+  protected interface AnyDecoder {
+    Object decode(ByteString value) throws IOException;
+  }
+
+  private static final String TYPE_URL_PREFIX = "type.googleapis.com/";
+  private static final int VALUE_VARINT_TAG = 1 << 3 | WireFormat.WIRETYPE_VARINT;
+  private static final int VALUE_FIXED64_TAG = 1 << 3 | WireFormat.WIRETYPE_FIXED64;
+  private static final int VALUE_FIXED32_TAG = 1 << 3 | WireFormat.WIRETYPE_FIXED32;
+  private static final int VALUE_LENGTH_DELIMITED_TAG = 1 << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+  /*
+   * Decoders by type name, the well-known wrappers are read directly from the
+   * serialized content, as they only consist of their field 1, without
+   * building the wrapper message first.
+   */
+  private static final Map<String, AnyDecoder> DECODERS;
+
+  static {
+    Map<String, AnyDecoder> tempMap = new HashMap<>();
+    tempMap.put(typeName(Empty.getDescriptor()), value -> null);
+    tempMap.put(typeName(Int32Value.getDescriptor()), value -> readValueField(value, VALUE_VARINT_TAG, CodedInputStream::readInt32, 0));
+    tempMap.put(typeName(Int64Value.getDescriptor()), value -> readValueField(value, VALUE_VARINT_TAG, CodedInputStream::readInt64, 0L));
+    tempMap.put(typeName(DoubleValue.getDescriptor()), value -> readValueField(value, VALUE_FIXED64_TAG, CodedInputStream::readDouble, 0d));
+    tempMap.put(typeName(FloatValue.getDescriptor()), value -> readValueField(value, VALUE_FIXED32_TAG, CodedInputStream::readFloat, 0f));
+    tempMap.put(typeName(BoolValue.getDescriptor()), value -> readValueField(value, VALUE_VARINT_TAG, CodedInputStream::readBool, false));
+    tempMap.put(typeName(StringValue.getDescriptor()),
+        value -> readValueField(value, VALUE_LENGTH_DELIMITED_TAG, CodedInputStream::readStringRequireUtf8, ""));
+    tempMap.put(typeName(BytesValue.getDescriptor()),
+        value -> readValueField(value, VALUE_LENGTH_DELIMITED_TAG, CodedInputStream::readByteArray, new byte[0]));
+    tempMap.put(typeName(MapValue.getDescriptor()), value -> unpackMap(MapValue.parseFrom(value).getValuesMap()));
+    tempMap.put(typeName(ListValue.getDescriptor()), value -> unpackList(ListValue.parseFrom(value).getValuesList()));
+    DECODERS = Collections.unmodifiableMap(tempMap);
+  }
+
+  /** reads a single field of the value */
+  @FunctionalInterface
+  protected interface FieldReader<T> {
+    T read(CodedInputStream input) throws IOException;
+  }
+
+  protected static <T> Object readValueField(ByteString value, int tag, FieldReader<T> reader, T defaultValue) throws IOException {
+    if (value.isEmpty()) {
+      return defaultValue;
+    }
+    CodedInputStream input = value.newCodedInput();
+    T result = defaultValue;
+    int readTag;
+    while ((readTag = input.readTag()) != 0) {
+      if (readTag == tag) {
+        result = reader.read(input);
+      } else {
+        input.skipField(readTag);
+      }
+    }
+    return result;
+  }
+
+  protected static String typeName(Descriptor descriptor) {
+    return TYPE_URL_PREFIX + descriptor.getFullName();
+  }
+
+  public static Object unpack(Any any) {
+    String typeUrl = any.getTypeUrl();
+    AnyDecoder decoder = DECODERS.get(typeUrl);
+    if (decoder == null && !typeUrl.startsWith(TYPE_URL_PREFIX)) {
+      // other prefixes are valid as well, only the type name counts
+      decoder = DECODERS.get(TYPE_URL_PREFIX + typeUrl.substring(typeUrl.lastIndexOf('/') + 1));
+    }
+    if (decoder == null) {
+      throw new IllegalArgumentException("Cannot transform proto value to object:" + any);
+    }
+    try {
+      return decoder.decode(any.getValue());
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Cannot transform proto value to object:" + any, e);
+    }
+  }
+
+  public static List<Object> unpackList(List<Any> valuesList) {
+    return valuesList.stream().map(VariableUtils::unpack).collect(Collectors.toList());
+  }
+
+  public static Map<String, Object> unpackMap(Map<String, Any> valuesMap) {
+    return valuesMap.entrySet().stream().collect(Collectors.toMap(Entry::getKey, e -> VariableUtils.unpack(e.getValue())));
+  }
+
+  /**
+   * @param formatDates
+   *          whether dates are formatted with {@link #DATETIME_FORMATTER} like
+   *          in ANY encoding, e.g. for the client mapping dates from strings
+   */
+  public static Object unpackValue(Value value, boolean formatDates) {
+    switch (value.getKindCase()) {
+    case STRINGVALUE:
+      return value.getStringValue();
+    case INT32VALUE:
+      return value.getInt32Value();
+    case INT64VALUE:
+      return value.getInt64Value();
+    case DOUBLEVALUE:
+      return value.getDoubleValue();
+    case FLOATVALUE:
+      return value.getFloatValue();
+    case BOOLVALUE:
+      return value.getBoolValue();
+    case BYTESVALUE:
+      return value.getBytesValue().toByteArray();
+    case TIMESTAMPVALUE:
+      Date date = getDate(value.getTimestampValue());
+      return formatDates ? formatDate(date) : date;
+    case LISTVALUE:
+      List<Object> list = new ArrayList<>(value.getListValue().getValuesCount());
+      for (Value element : value.getListValue().getValuesList()) {
+        list.add(unpackValue(element, formatDates));
+      }
+      return list;
+    case MAPVALUE:
+      return unpackValueMap(value.getMapValue().getValuesMap(), formatDates);
+    default:
+      return null;
+    }
+  }
+
+  public static Map<String, Object> unpackValueMap(Map<String, Value> valuesMap, boolean formatDates) {
+    Map<String, Object> map = new HashMap<>();
+    for (Entry<String, Value> entry : valuesMap.entrySet()) {
+      map.put(entry.getKey(), unpackValue(entry.getValue(), formatDates));
+    }
+    return map;
+  }
+
+  /**
+   * @return the value of the field in whatever encoding it was sent
+   */
+  public static Object unpackValue(TypedValueFieldDto field, boolean formatDates) {
+    return field.hasCompactValue() ? unpackValue(field.getCompactValue(), formatDates) : unpack(field.getValue());
+  }
+
+  /**
+   * @return the value info of the field in whatever encoding it was sent
+   */
+  public static Map<String, Object> unpackValueInfo(TypedValueFieldDto field, boolean formatDates) {
+    return field.hasCompactValue() ? unpackValueMap(field.getCompactValueInfoMap(), formatDates) : unpackMap(field.getValueInfoMap());
+  }
+
+  public static Date getDate(Timestamp ts) {
+    return Date.from(Instant
+      .ofEpochSecond(ts.getSeconds() , ts.getNanos())
+      .atZone(ZoneId.systemDefault())
+      .toInstant());
+  }
+
+  // MISC
+
+  public static boolean notEmpty(String value) {
+    return value != null && !value.isEmpty();
+  }
+
+  public static boolean notEmpty(Collection<?> list) {
+    return list != null && !list.isEmpty();
+  }
+
+  public static int getSafe(Integer value) {
+    return Optional.ofNullable(value).orElse(0);
+  }
+
+  public static String getSafe(String value) {
+    return Optional.ofNullable(value).orElse("");
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,216 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. Camunda licenses this file to you under the Apache License,
+ * Version 2.0; you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.camunda.bpm.grpc.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.type.ValueType;
+import org.camunda.bpm.grpc.TypedValueFieldDto;
+import org.camunda.bpm.grpc.Value;
+import org.camunda.bpm.grpc.ValueEncoding;
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.BoolValue;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+import com.google.protobuf.DoubleValue;
+import com.google.protobuf.FloatValue;
+import com.google.protobuf.Int32Value;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.StringValue;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.UnknownFieldSet;
+
+public class VariableUtilsTest {
+
+  private static final Date DATE = new Date(1234567890123L);
+
+  // ANY ENCODING
+
+  @Test
+  public void shouldRoundTripPrimitives() {
+    assertEquals("foo", roundTrip("foo"));
+    assertEquals(42, roundTrip(42));
+    assertEquals(42, roundTrip((short) 42));
+    assertEquals(42L, roundTrip(42L));
+    assertEquals(4.2d, roundTrip(4.2d));
+    assertEquals(4.2f, roundTrip(4.2f));
+    assertEquals(true, roundTrip(true));
+  }
+
+  @Test
+  public void shouldRoundTripNull() {
+    assertNull(roundTrip(null));
+  }
+
+  @Test
+  public void shouldRoundTripBytes() {
+    byte[] bytes = new byte[] { 0, 1, 2, -1 };
+
+    assertArrayEquals(bytes, (byte[]) roundTrip(bytes));
+  }
+
+  @Test
+  public void shouldRoundTripDateAsFormattedString() {
+    assertEquals(VariableUtils.formatDate(DATE), roundTrip(DATE));
+  }
+
+  @Test
+  public void shouldRoundTripNestedListAndMap() {
+    Map<String, Object> inner = new HashMap<>();
+    inner.put("string", "foo");
+    inner.put("list", Arrays.asList(1, null, "bar"));
+    Map<String, Object> outer = new HashMap<>();
+    outer.put("map", inner);
+    outer.put("long", 42L);
+    List<Object> list = Arrays.asList(outer, Collections.emptyList(), Collections.emptyMap());
+
+    assertEquals(list, roundTrip(list));
+  }
+
+  @Test
+  public void shouldDecodeDefaultOfEmptyWrapper() {
+    // default values are not serialized, the content of the Any is empty
+    assertEquals(0, VariableUtils.unpack(Any.pack(Int32Value.of(0))));
+    assertEquals(0L, VariableUtils.unpack(Any.pack(Int64Value.of(0L))));
+    assertEquals(0d, VariableUtils.unpack(Any.pack(DoubleValue.of(0d))));
+    assertEquals(0f, VariableUtils.unpack(Any.pack(FloatValue.of(0f))));
+    assertEquals(false, VariableUtils.unpack(Any.pack(BoolValue.of(false))));
+    assertEquals("", VariableUtils.unpack(Any.pack(StringValue.of(""))));
+    assertArrayEquals(new byte[0], (byte[]) VariableUtils.unpack(Any.pack(BytesValue.of(ByteString.EMPTY))));
+  }
+
+  @Test
+  public void shouldSkipUnknownFieldsOfWrapper() {
+    UnknownFieldSet unknownFields = UnknownFieldSet.newBuilder()
+        .addField(2, UnknownFieldSet.Field.newBuilder().addVarint(7).build())
+        .addField(3, UnknownFieldSet.Field.newBuilder().addLengthDelimited(ByteString.copyFromUtf8("bar")).build())
+        .build();
+
+    assertEquals("foo", VariableUtils.unpack(Any.pack(StringValue.newBuilder().setValue("foo").setUnknownFields(unknownFields).build())));
+    assertEquals(42, VariableUtils.unpack(Any.pack(Int32Value.newBuilder().setValue(42).setUnknownFields(unknownFields).build())));
+    assertEquals(0, VariableUtils.unpack(Any.pack(Int32Value.newBuilder().setUnknownFields(unknownFields).build())));
+  }
+
+  @Test
+  public void shouldDecodeTypeUrlWithOtherPrefix() {
+    assertEquals("foo", VariableUtils.unpack(Any.pack(StringValue.of("foo"), "example.com/types")));
+    assertEquals(42L, VariableUtils.unpack(Any.pack(Int64Value.of(42L), "example.com")));
+  }
+
+  @Test
+  public void shouldRejectUnknownType() {
+    assertThrows(IllegalArgumentException.class, () -> VariableUtils.unpack(Any.pack(Timestamp.getDefaultInstance())));
+  }
+
+  @Test
+  public void shouldRejectMalformedWrapper() {
+    Any malformed = Any.newBuilder()
+        .setTypeUrl(Any.pack(StringValue.of("foo")).getTypeUrl())
+        .setValue(ByteString.copyFrom(new byte[] { 10, 5, 'f' }))
+        .build();
+
+    assertThrows(IllegalArgumentException.class, () -> VariableUtils.unpack(malformed));
+  }
+
+  // COMPACT ENCODING
+
+  @Test
+  public void shouldRoundTripCompactPrimitives() {
+    assertEquals("foo", roundTripCompact("foo"));
+    assertEquals(42, roundTripCompact(42));
+    assertEquals(42, roundTripCompact((short) 42));
+    assertEquals(42L, roundTripCompact(42L));
+    assertEquals(4.2d, roundTripCompact(4.2d));
+    assertEquals(4.2f, roundTripCompact(4.2f));
+    assertEquals(true, roundTripCompact(true));
+  }
+
+  @Test
+  public void shouldRoundTripCompactNull() {
+    Value value = VariableUtils.packValue(null);
+
+    assertEquals(Value.KindCase.KIND_NOT_SET, value.getKindCase());
+    assertNull(VariableUtils.unpackValue(value, false));
+  }
+
+  @Test
+  public void shouldRoundTripCompactBytes() {
+    byte[] bytes = new byte[] { 0, 1, 2, -1 };
+
+    assertArrayEquals(bytes, (byte[]) roundTripCompact(bytes));
+  }
+
+  @Test
+  public void shouldRoundTripCompactDate() {
+    Value value = VariableUtils.packValue(DATE);
+
+    assertEquals(Value.KindCase.TIMESTAMPVALUE, value.getKindCase());
+    assertEquals(DATE, VariableUtils.unpackValue(value, false));
+    assertEquals(VariableUtils.formatDate(DATE), VariableUtils.unpackValue(value, true));
+  }
+
+  @Test
+  public void shouldRoundTripCompactNestedListAndMap() {
+    Map<String, Object> inner = new HashMap<>();
+    inner.put("string", "foo");
+    inner.put("list", Arrays.asList(1, null, "bar"));
+    Map<String, Object> outer = new HashMap<>();
+    outer.put("map", inner);
+    outer.put("long", 42L);
+    List<Object> list = Arrays.asList(outer, Collections.emptyList(), Collections.emptyMap());
+
+    assertEquals(list, roundTripCompact(list));
+  }
+
+  @Test
+  public void shouldSendFieldInRequestedEncoding() {
+    Map<String, TypedValueFieldDto> fields = VariableUtils.toTypedValueFields(Variables.createVariables()
+        .putValueTyped("string", Variables.stringValue("foo"))
+        .putValue("null", null), ValueEncoding.COMPACT);
+
+    TypedValueFieldDto string = fields.get("string");
+    assertTrue(string.hasCompactValue());
+    assertFalse(string.hasValue());
+    assertEquals(ValueType.STRING.getName(), string.getType());
+    assertEquals("foo", VariableUtils.unpackValue(string, false));
+    assertNull(VariableUtils.unpackValue(fields.get("null"), false));
+  }
+
+  protected Object roundTrip(Object value) {
+    return VariableUtils.unpack(VariableUtils.pack(value));
+  }
+
+  protected Object roundTripCompact(Object value) {
+    return VariableUtils.unpackValue(VariableUtils.packValue(value), false);
+  }
+
+}
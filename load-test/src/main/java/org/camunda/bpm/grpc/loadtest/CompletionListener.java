@@ -0,0 +1,26 @@
+package org.camunda.bpm.grpc.loadtest;
+
+import org.camunda.bpm.engine.delegate.DelegateExecution;
+import org.camunda.bpm.engine.delegate.ExecutionListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the time from a worker requesting the completion of its task until
+ * the engine continued the process.
+ */
+@Component(CompletionListener.BEAN_NAME)
+public class CompletionListener implements ExecutionListener {
+
+  public static final String BEAN_NAME = "completionListener";
+
+  @Autowired
+  private LoadTestMetrics metrics;
+
+  @Override
+  public void notify(DelegateExecution execution) {
+    Long completeRequestedAt = (Long) execution.getVariable(LoadTestRunner.COMPLETE_REQUESTED_AT);
+    metrics.completed(completeRequestedAt);
+  }
+
+}
@@ -0,0 +1,63 @@
+package org.camunda.bpm.grpc.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records latencies into a preallocated array, so recording neither
+ * allocates nor contends on a lock while the load is running. Latencies
+ * beyond the capacity, e.g. of redelivered tasks, are counted but not kept.
+ */
+public class LatencyRecorder {
+
+  private final long[] latencies;
+  private final AtomicInteger count = new AtomicInteger();
+
+  public LatencyRecorder(int capacity) {
+    this.latencies = new long[capacity];
+  }
+
+  public void record(long latencyNanos) {
+    int index = count.getAndIncrement();
+    if (index < latencies.length) {
+      latencies[index] = latencyNanos;
+    }
+  }
+
+  public int getCount() {
+    return count.get();
+  }
+
+  /**
+   * @return count and percentiles in microseconds, only call once the load
+   *         has stopped
+   */
+  public Map<String, Object> summarize() {
+    long[] sorted = Arrays.copyOf(latencies, Math.min(count.get(), latencies.length));
+    Arrays.sort(sorted);
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("count", count.get());
+    summary.put("p50Micros", toMicros(percentile(sorted, 0.5)));
+    summary.put("p99Micros", toMicros(percentile(sorted, 0.99)));
+    summary.put("p999Micros", toMicros(percentile(sorted, 0.999)));
+    summary.put("maxMicros", toMicros(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+    return summary;
+  }
+
+  protected static long percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    // nearest rank
+    int rank = (int) Math.ceil(percentile * sorted.length);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  protected static long toMicros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+}
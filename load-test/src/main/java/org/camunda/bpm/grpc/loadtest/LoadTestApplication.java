@@ -0,0 +1,19 @@
+package org.camunda.bpm.grpc.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+
+@SpringBootApplication
+@EnableConfigurationProperties(LoadTestProperties.class)
+public class LoadTestApplication {
+
+  public static void main(String... args) throws Exception {
+    ConfigurableApplicationContext context = SpringApplication.run(LoadTestApplication.class, args);
+    // the gRPC server is running once the application is started
+    boolean completed = context.getBean(LoadTestRunner.class).run();
+    System.exit(SpringApplication.exit(context, () -> completed ? 0 : 1));
+  }
+
+}
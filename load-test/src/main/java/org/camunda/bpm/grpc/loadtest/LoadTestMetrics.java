@@ -0,0 +1,55 @@
+package org.camunda.bpm.grpc.loadtest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Collects the latencies of the current run. Engine and workers run in the
+ * same JVM, so timestamps are taken from {@link System#nanoTime()} on both
+ * sides.
+ */
+@Component
+public class LoadTestMetrics {
+
+  private volatile LatencyRecorder deliveryLatencies = new LatencyRecorder(0);
+  private volatile LatencyRecorder completeLatencies = new LatencyRecorder(0);
+  private volatile CountDownLatch completions = new CountDownLatch(0);
+
+  /**
+   * Starts a new run expecting the given number of process instances.
+   */
+  public void reset(int processInstances) {
+    // leave room for redelivered tasks
+    deliveryLatencies = new LatencyRecorder(processInstances * 2);
+    completeLatencies = new LatencyRecorder(processInstances * 2);
+    completions = new CountDownLatch(processInstances);
+  }
+
+  public void delivered(long createdAt) {
+    deliveryLatencies.record(System.nanoTime() - createdAt);
+  }
+
+  public void completed(long completeRequestedAt) {
+    completeLatencies.record(System.nanoTime() - completeRequestedAt);
+    completions.countDown();
+  }
+
+  public boolean awaitCompletions(long timeout, TimeUnit unit) throws InterruptedException {
+    return completions.await(timeout, unit);
+  }
+
+  public long getCompletionCount() {
+    return completeLatencies.getCount();
+  }
+
+  public LatencyRecorder getDeliveryLatencies() {
+    return deliveryLatencies;
+  }
+
+  public LatencyRecorder getCompleteLatencies() {
+    return completeLatencies;
+  }
+
+}
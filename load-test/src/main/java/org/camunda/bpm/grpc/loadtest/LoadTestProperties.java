@@ -0,0 +1,140 @@
+package org.camunda.bpm.grpc.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "load-test")
+public class LoadTestProperties {
+
+  /** address of the gRPC server the workers connect to */
+  private String baseUrl = "localhost:6566";
+
+  /** number of workers, each with a client of its own */
+  private int workers = 4;
+
+  /** number of tasks a worker locks at most at a time */
+  private int maxTasks = 10;
+
+  /** lock duration of the tasks in milliseconds */
+  private long lockDuration = 60000;
+
+  /** whether the workers send their outcomes over the outcome stream */
+  private boolean useOutcomeStream = false;
+
+  /** whether completing a task locks the next task in the same call */
+  private boolean prefetchOnComplete = false;
+
+  /** whether the workers fetch their variables lazily */
+  private boolean lazyVariables = false;
+
+  /** number of process instances started before measuring, to warm up the JVM */
+  private int warmupInstances = 1000;
+
+  /** number of process instances measured */
+  private int processInstances = 10000;
+
+  /** number of threads starting process instances */
+  private int starterThreads = 4;
+
+  /** time after which a run is aborted */
+  private int timeoutSeconds = 300;
+
+  /** file the result is written to as JSON */
+  private String resultFile = "load-test-result.json";
+
+  public String getBaseUrl() {
+    return baseUrl;
+  }
+
+  public void setBaseUrl(String baseUrl) {
+    this.baseUrl = baseUrl;
+  }
+
+  public int getWorkers() {
+    return workers;
+  }
+
+  public void setWorkers(int workers) {
+    this.workers = workers;
+  }
+
+  public int getMaxTasks() {
+    return maxTasks;
+  }
+
+  public void setMaxTasks(int maxTasks) {
+    this.maxTasks = maxTasks;
+  }
+
+  public long getLockDuration() {
+    return lockDuration;
+  }
+
+  public void setLockDuration(long lockDuration) {
+    this.lockDuration = lockDuration;
+  }
+
+  public boolean isUseOutcomeStream() {
+    return useOutcomeStream;
+  }
+
+  public void setUseOutcomeStream(boolean useOutcomeStream) {
+    this.useOutcomeStream = useOutcomeStream;
+  }
+
+  public boolean isPrefetchOnComplete() {
+    return prefetchOnComplete;
+  }
+
+  public void setPrefetchOnComplete(boolean prefetchOnComplete) {
+    this.prefetchOnComplete = prefetchOnComplete;
+  }
+
+  public boolean isLazyVariables() {
+    return lazyVariables;
+  }
+
+  public void setLazyVariables(boolean lazyVariables) {
+    this.lazyVariables = lazyVariables;
+  }
+
+  public int getWarmupInstances() {
+    return warmupInstances;
+  }
+
+  public void setWarmupInstances(int warmupInstances) {
+    this.warmupInstances = warmupInstances;
+  }
+
+  public int getProcessInstances() {
+    return processInstances;
+  }
+
+  public void setProcessInstances(int processInstances) {
+    this.processInstances = processInstances;
+  }
+
+  public int getStarterThreads() {
+    return starterThreads;
+  }
+
+  public void setStarterThreads(int starterThreads) {
+    this.starterThreads = starterThreads;
+  }
+
+  public int getTimeoutSeconds() {
+    return timeoutSeconds;
+  }
+
+  public void setTimeoutSeconds(int timeoutSeconds) {
+    this.timeoutSeconds = timeoutSeconds;
+  }
+
+  public String getResultFile() {
+    return resultFile;
+  }
+
+  public void setResultFile(String resultFile) {
+    this.resultFile = resultFile;
+  }
+
+}
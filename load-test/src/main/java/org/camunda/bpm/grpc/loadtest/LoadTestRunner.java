@@ -0,0 +1,182 @@
+package org.camunda.bpm.grpc.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.client.ExternalTaskClient;
+import org.camunda.bpm.client.task.ExternalTaskHandler;
+import org.camunda.bpm.engine.RepositoryService;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.delegate.ExecutionListener;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.grpc.client.ExternalTaskClientBuilderGrpc;
+import org.camunda.bpm.grpc.client.ExternalTaskClientGrpc;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Runs the load test: deploys a process with a single external task, starts
+ * the workers, starts the process instances and waits until all of them
+ * passed their task. A warmup run precedes the measured run.
+ */
+@Component
+public class LoadTestRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(LoadTestRunner.class);
+
+  public static final String PROCESS_KEY = "loadTest";
+  public static final String TOPIC = "load-test";
+  public static final String CREATED_AT = "createdAt";
+  public static final String COMPLETE_REQUESTED_AT = "completeRequestedAt";
+
+  @Autowired
+  private LoadTestProperties properties;
+
+  @Autowired
+  private LoadTestMetrics metrics;
+
+  @Autowired
+  private RepositoryService repositoryService;
+
+  @Autowired
+  private RuntimeService runtimeService;
+
+  /**
+   * @return whether all process instances were completed in time
+   */
+  public boolean run() throws InterruptedException, IOException {
+    deploy();
+    List<ExternalTaskClient> clients = startWorkers();
+    try {
+      if (properties.getWarmupInstances() > 0) {
+        log.info("Warming up with {} process instances", properties.getWarmupInstances());
+        runPhase(properties.getWarmupInstances());
+      }
+      log.info("Measuring {} process instances with {} workers", properties.getProcessInstances(), properties.getWorkers());
+      long duration = runPhase(properties.getProcessInstances());
+      Map<String, Object> result = createResult(duration);
+      writeResult(result);
+      return duration >= 0;
+    } finally {
+      clients.forEach(ExternalTaskClient::stop);
+    }
+  }
+
+  protected void deploy() {
+    BpmnModelInstance model = Bpmn.createExecutableProcess(PROCESS_KEY)
+        .startEvent()
+        .serviceTask("work").camundaExternalTask(TOPIC)
+        .endEvent()
+        .camundaExecutionListenerDelegateExpression(ExecutionListener.EVENTNAME_START, "${" + CompletionListener.BEAN_NAME + "}")
+        .done();
+    repositoryService.createDeployment().addModelInstance(PROCESS_KEY + ".bpmn", model).deploy();
+  }
+
+  protected List<ExternalTaskClient> startWorkers() {
+    List<ExternalTaskClient> clients = new ArrayList<>();
+    for (int i = 1; i <= properties.getWorkers(); i++) {
+      ExternalTaskClientBuilderGrpc builder = ExternalTaskClientGrpc.create();
+      if (properties.isUseOutcomeStream()) {
+        builder.useOutcomeStream();
+      }
+      if (properties.isPrefetchOnComplete()) {
+        builder.prefetchOnComplete();
+      }
+      if (properties.isLazyVariables()) {
+        builder.lazyVariables();
+      }
+      ExternalTaskClient client = builder
+          .baseUrl(properties.getBaseUrl())
+          .workerId("load-test-worker-" + i)
+          .maxTasks(properties.getMaxTasks())
+          .lockDuration(properties.getLockDuration())
+          .disableAutoFetching()
+          .build();
+      client.subscribe(TOPIC).variables(CREATED_AT).handler(createHandler()).open();
+      client.start();
+      clients.add(client);
+    }
+    return clients;
+  }
+
+  protected ExternalTaskHandler createHandler() {
+    return (externalTask, externalTaskService) -> {
+      Long createdAt = externalTask.getVariable(CREATED_AT);
+      metrics.delivered(createdAt);
+      externalTaskService.complete(externalTask, Collections.singletonMap(COMPLETE_REQUESTED_AT, System.nanoTime()));
+    };
+  }
+
+  /**
+   * @return the duration in nanoseconds until all process instances passed
+   *         their task or <code>-1</code> if the run timed out
+   */
+  protected long runPhase(int processInstances) throws InterruptedException {
+    metrics.reset(processInstances);
+    int starterThreads = Math.max(1, properties.getStarterThreads());
+    ExecutorService starters = Executors.newFixedThreadPool(starterThreads);
+    long start = System.nanoTime();
+    for (int i = 0; i < starterThreads; i++) {
+      int instances = processInstances / starterThreads + (i < processInstances % starterThreads ? 1 : 0);
+      starters.execute(() -> {
+        for (int j = 0; j < instances; j++) {
+          runtimeService.startProcessInstanceByKey(PROCESS_KEY, Variables.putValue(CREATED_AT, System.nanoTime()));
+        }
+      });
+    }
+    starters.shutdown();
+    boolean completed = metrics.awaitCompletions(properties.getTimeoutSeconds(), TimeUnit.SECONDS);
+    long duration = System.nanoTime() - start;
+    if (!completed) {
+      starters.shutdownNow();
+      log.error("Run timed out after {} seconds with {} of {} process instances completed", properties.getTimeoutSeconds(),
+          metrics.getCompletionCount(), processInstances);
+      return -1;
+    }
+    return duration;
+  }
+
+  protected Map<String, Object> createResult(long durationNanos) {
+    Map<String, Object> configuration = new LinkedHashMap<>();
+    configuration.put("workers", properties.getWorkers());
+    configuration.put("maxTasks", properties.getMaxTasks());
+    configuration.put("useOutcomeStream", properties.isUseOutcomeStream());
+    configuration.put("lazyVariables", properties.isLazyVariables());
+    configuration.put("starterThreads", properties.getStarterThreads());
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("configuration", configuration);
+    result.put("processInstances", properties.getProcessInstances());
+    result.put("completed", durationNanos >= 0);
+    if (durationNanos >= 0) {
+      result.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+      result.put("throughputPerSecond", properties.getProcessInstances() * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos);
+    }
+    result.put("creationToDelivery", metrics.getDeliveryLatencies().summarize());
+    result.put("complete", metrics.getCompleteLatencies().summarize());
+    return result;
+  }
+
+  protected void writeResult(Map<String, Object> result) throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    File resultFile = new File(properties.getResultFile());
+    objectMapper.writeValue(resultFile, result);
+    log.info("Load test result written to {}:\n{}", resultFile.getAbsolutePath(), objectMapper.writeValueAsString(result));
+  }
+
+}
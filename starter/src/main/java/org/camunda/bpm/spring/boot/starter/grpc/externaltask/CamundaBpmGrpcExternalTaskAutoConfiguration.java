@@ -16,10 +16,14 @@
  */
 package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
 
+import org.camunda.bpm.engine.ProcessEngine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties(GrpcExternalTaskProperties.class)
 public class CamundaBpmGrpcExternalTaskAutoConfiguration {
 
   @Bean
@@ -27,6 +31,28 @@ public class CamundaBpmGrpcExternalTaskAutoConfiguration {
     return new WaitingClientInformer();
   }
 
+  @Bean
+  @ConditionalOnProperty(prefix = GrpcExternalTaskProperties.PREFIX, name = "targeted-wake-up", havingValue = "true")
+  public ExternalTaskCreationPlugin getExternalTaskCreationPlugin() {
+    return new ExternalTaskCreationPlugin();
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  public EngineCallExecutor getEngineCallExecutor(GrpcExternalTaskProperties properties) {
+    return new EngineCallExecutor(properties);
+  }
+
+  @Bean
+  public GroupedCommandExecutor getGroupedCommandExecutor(ProcessEngine processEngine) {
+    return new GroupedCommandExecutor(processEngine);
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  @ConditionalOnProperty(prefix = GrpcExternalTaskProperties.PREFIX, name = "group-commit.enabled", havingValue = "true")
+  public GroupCommitter getGroupCommitter(GroupedCommandExecutor groupedCommandExecutor, GrpcExternalTaskProperties properties) {
+    return new GroupCommitter(groupedCommandExecutor, properties.getGroupCommit());
+  }
+
   @Bean
   public ExternalTaskServiceGrpc getExternalTaskServiceGrpc() {
     return new ExternalTaskServiceGrpc();
@@ -0,0 +1,117 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.camunda.bpm.grpc.GetBinaryVariableResponse;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams binary content in chunks of a fixed size. A chunk is only read once
+ * the transport is ready to send it, so a slow client never makes the server
+ * buffer more than a single chunk. Has to be created while the call is
+ * initialized, as the ready and cancel handlers cannot be set later on.
+ */
+@Slf4j
+public class ChunkedContentSender {
+
+  private final ServerCallStreamObserver<GetBinaryVariableResponse> responseObserver;
+  private final byte[] buffer;
+  private InputStream content;
+  private boolean done;
+
+  public ChunkedContentSender(ServerCallStreamObserver<GetBinaryVariableResponse> responseObserver, int chunkSize) {
+    this.responseObserver = responseObserver;
+    this.buffer = new byte[Math.max(1, chunkSize)];
+    responseObserver.setOnReadyHandler(this::send);
+    responseObserver.setOnCancelHandler(this::cancelled);
+  }
+
+  /**
+   * Starts sending the content, the content is closed once it was sent
+   * completely or the call was cancelled.
+   */
+  public void start(InputStream content) {
+    synchronized (this) {
+      if (done) {
+        close(content);
+        return;
+      }
+      this.content = content;
+    }
+    send();
+  }
+
+  /**
+   * Fails the call instead of sending content.
+   */
+  public synchronized void fail(Throwable t) {
+    if (!done) {
+      finish();
+      responseObserver.onError(t);
+    }
+  }
+
+  protected synchronized void send() {
+    if (content == null || done) {
+      return;
+    }
+    try {
+      while (responseObserver.isReady()) {
+        int length = readChunk();
+        if (length <= 0) {
+          finish();
+          responseObserver.onCompleted();
+          return;
+        }
+        responseObserver.onNext(GetBinaryVariableResponse.newBuilder().setData(ByteString.copyFrom(buffer, 0, length)).build());
+      }
+    } catch (IOException e) {
+      log.error("Error on reading binary content", e);
+      finish();
+      responseObserver.onError(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+    }
+  }
+
+  /**
+   * @return the number of bytes read into the buffer, fills the buffer unless
+   *         the end of the content is reached
+   */
+  protected int readChunk() throws IOException {
+    int length = 0;
+    while (length < buffer.length) {
+      int read = content.read(buffer, length, buffer.length - length);
+      if (read < 0) {
+        break;
+      }
+      length += read;
+    }
+    return length;
+  }
+
+  protected synchronized void cancelled() {
+    log.debug("Client cancelled receiving binary content");
+    finish();
+  }
+
+  protected void finish() {
+    done = true;
+    if (content != null) {
+      close(content);
+    }
+  }
+
+  protected static void close(InputStream content) {
+    try {
+      content.close();
+    } catch (IOException e) {
+      log.debug("Could not close binary content", e);
+    }
+  }
+
+}
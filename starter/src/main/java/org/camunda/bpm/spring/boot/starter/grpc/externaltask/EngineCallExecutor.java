@@ -0,0 +1,86 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.GrpcExternalTaskProperties.LaneProperties;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs engine calls of the gRPC API apart from the gRPC server threads. Short
+ * control calls and heavy calls use separate lanes with bounded queues, so
+ * e.g. lock extensions never wait behind large completions. Calls exceeding a
+ * lane's capacity are rejected with {@link Status#RESOURCE_EXHAUSTED}.
+ */
+@Slf4j
+public class EngineCallExecutor {
+
+  public enum Lane {
+    /** short calls like extending locks and unlocking */
+    CONTROL,
+    /** calls executing process logic or fetching tasks */
+    HEAVY
+  }
+
+  private final ThreadPoolExecutor controlLane;
+  private final ThreadPoolExecutor heavyLane;
+
+  public EngineCallExecutor(GrpcExternalTaskProperties properties) {
+    this.controlLane = createLane(Lane.CONTROL, properties.getControlLane());
+    this.heavyLane = createLane(Lane.HEAVY, properties.getHeavyLane());
+  }
+
+  protected static ThreadPoolExecutor createLane(Lane lane, LaneProperties properties) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(), 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+          Thread thread = new Thread(runnable, "grpc-engine-" + lane.name().toLowerCase() + "-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Runs the call in the given lane or rejects it right away.
+   *
+   * @return <code>false</code> if the call was rejected
+   */
+  public boolean execute(Lane lane, Runnable call) {
+    try {
+      (lane == Lane.CONTROL ? controlLane : heavyLane).execute(call);
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Runs the call in the given lane, a rejected call is answered with
+   * {@link Status#RESOURCE_EXHAUSTED} on the response observer.
+   */
+  public void execute(Lane lane, StreamObserver<?> responseObserver, Runnable call) {
+    if (!execute(lane, call)) {
+      log.debug("Rejecting engine call, {} lane is exhausted", lane);
+      responseObserver.onError(Status.RESOURCE_EXHAUSTED.withDescription("Too many pending " + lane.name().toLowerCase() + " calls").asRuntimeException());
+    }
+  }
+
+  public void shutdown() {
+    controlLane.shutdown();
+    heavyLane.shutdown();
+    try {
+      controlLane.awaitTermination(10, TimeUnit.SECONDS);
+      heavyLane.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      log.warn("Shutting down the engine call executor failed", e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
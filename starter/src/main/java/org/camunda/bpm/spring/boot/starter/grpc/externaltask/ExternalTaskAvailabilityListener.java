@@ -0,0 +1,23 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.Collection;
+
+/**
+ * Gets notified by the {@link ExternalTaskCreationPlugin} after a transaction
+ * making external tasks available was committed.
+ */
+public interface ExternalTaskAvailabilityListener {
+
+  /**
+   * External tasks for the given topics were created, a topic is contained
+   * once per created task.
+   */
+  void topicsAvailable(Collection<String> topicNames);
+
+  /**
+   * External tasks of unknown topics became available again, e.g. because
+   * they were unlocked.
+   */
+  void tasksAvailable();
+
+}
@@ -1,20 +1,42 @@
 package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.camunda.bpm.engine.externaltask.ExternalTask;
 import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
 import org.camunda.bpm.engine.impl.util.SingleConsumerCondition;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
-public class ExternalTaskCreationListener implements Runnable {
+public class ExternalTaskCreationListener implements Runnable, ExternalTaskAvailabilityListener {
+
+  private static final long MAX_WAIT_TIME = 500000L;
 
   private WaitingClientInformer informer;
   private boolean isRunning = false;
   private Thread handlerThread = new Thread(this);
   private SingleConsumerCondition condition;
 
+  /** whether the listener is informed about topics or only about any external task being available */
+  private boolean targeted;
+  private AtomicBoolean informAll = new AtomicBoolean(true);
+  private Set<String> pendingTopics = ConcurrentHashMap.newKeySet();
+
   public ExternalTaskCreationListener(WaitingClientInformer informer) {
+    this(informer, false);
+  }
+
+  public ExternalTaskCreationListener(WaitingClientInformer informer, boolean targeted) {
     this.informer = informer;
+    this.targeted = targeted;
   }
 
   @Override
@@ -22,10 +44,29 @@ public class ExternalTaskCreationListener implements Runnable {
     while (isRunning) {
       try {
         log.info("Run external task listener...");
-        informer.informClients();
-        log.info("Let external task listener wait...");
-        condition.await(500000L);
+        if (informAll.getAndSet(false)) {
+          pendingTopics.clear();
+          informer.informClients();
+        } else {
+          List<String> topicNames = drainPendingTopics();
+          if (!topicNames.isEmpty()) {
+            informer.informClients(topicNames);
+          }
+        }
+        // tasks becoming fetchable again after a retry timeout or an expired
+        // lock are not signaled by the engine, wake up when the first one is due
+        ExternalTask nextDueTask = informer.getNextDueTask();
+        long waitTime = MAX_WAIT_TIME;
+        if (nextDueTask != null) {
+          waitTime = Math.max(1L, Math.min(waitTime, nextDueTask.getLockExpirationTime().getTime() - ClockUtil.getCurrentTime().getTime()));
+        }
+        log.info("Let external task listener wait for {} ms...", waitTime);
+        condition.await(waitTime);
         log.info("External task listener woke up!");
+        if (nextDueTask != null && !ClockUtil.getCurrentTime().before(nextDueTask.getLockExpirationTime()) && informer.isDue(nextDueTask)) {
+          // only the clients waiting for the topic of the due task
+          pendingTopics.add(nextDueTask.getTopicName());
+        }
       } catch (Exception e) {
         // what ever happens, don't leave the loop
       } finally {
@@ -37,21 +78,46 @@ public class ExternalTaskCreationListener implements Runnable {
 
   }
 
+  @Override
+  public void topicsAvailable(Collection<String> topicNames) {
+    pendingTopics.addAll(topicNames);
+    condition.signal();
+  }
+
+  @Override
+  public void tasksAvailable() {
+    informAll.set(true);
+    condition.signal();
+  }
+
+  protected List<String> drainPendingTopics() {
+    List<String> topicNames = new ArrayList<>();
+    for (Iterator<String> iterator = pendingTopics.iterator(); iterator.hasNext();) {
+      topicNames.add(iterator.next());
+      iterator.remove();
+    }
+    return topicNames;
+  }
+
   public void start() {
     if (isRunning) {
       return;
     }
 
     isRunning = true;
+    condition = targeted ? new SingleConsumerCondition(handlerThread) : new EngineSignalCondition(handlerThread);
     handlerThread.start();
 
-    condition = new SingleConsumerCondition(handlerThread);
-    ProcessEngineImpl.EXT_TASK_CONDITIONS.addConsumer(condition);
+    if (!targeted) {
+      ProcessEngineImpl.EXT_TASK_CONDITIONS.addConsumer(condition);
+    }
   }
 
   public void shutdown() {
     try {
-      ProcessEngineImpl.EXT_TASK_CONDITIONS.removeConsumer(condition);
+      if (!targeted) {
+        ProcessEngineImpl.EXT_TASK_CONDITIONS.removeConsumer(condition);
+      }
     } finally {
       isRunning = false;
       condition.signal();
@@ -64,4 +130,21 @@ public class ExternalTaskCreationListener implements Runnable {
     }
   }
 
+  /**
+   * Signaled by the engine whenever any external task becomes available,
+   * without telling the topic.
+   */
+  protected class EngineSignalCondition extends SingleConsumerCondition {
+
+    public EngineSignalCondition(Thread consumer) {
+      super(consumer);
+    }
+
+    @Override
+    public void signal() {
+      informAll.set(true);
+      super.signal();
+    }
+  }
+
 }
@@ -0,0 +1,76 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.camunda.bpm.engine.impl.cfg.AbstractProcessEnginePlugin;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.Session;
+import org.camunda.bpm.engine.impl.interceptor.SessionFactory;
+import org.camunda.bpm.engine.impl.persistence.entity.ExternalTaskManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replaces the engine's {@link ExternalTaskManager} with one that publishes
+ * the topic of every created external task to the registered
+ * {@link ExternalTaskAvailabilityListener}s once the creating transaction is
+ * committed.
+ */
+@Slf4j
+public class ExternalTaskCreationPlugin extends AbstractProcessEnginePlugin {
+
+  private final List<ExternalTaskAvailabilityListener> listeners = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void preInit(ProcessEngineConfigurationImpl processEngineConfiguration) {
+    List<SessionFactory> sessionFactories = processEngineConfiguration.getCustomSessionFactories();
+    if (sessionFactories == null) {
+      sessionFactories = new ArrayList<>();
+      processEngineConfiguration.setCustomSessionFactories(sessionFactories);
+    }
+    sessionFactories.add(new SessionFactory() {
+
+      @Override
+      public Class<?> getSessionType() {
+        return ExternalTaskManager.class;
+      }
+
+      @Override
+      public Session openSession() {
+        return new TopicPublishingExternalTaskManager(ExternalTaskCreationPlugin.this);
+      }
+    });
+  }
+
+  public void addListener(ExternalTaskAvailabilityListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(ExternalTaskAvailabilityListener listener) {
+    listeners.remove(listener);
+  }
+
+  protected void publishTopics(Collection<String> topicNames) {
+    for (ExternalTaskAvailabilityListener listener : listeners) {
+      try {
+        listener.topicsAvailable(topicNames);
+      } catch (Exception e) {
+        log.warn("Could not publish available topics " + topicNames, e);
+      }
+    }
+  }
+
+  protected void publishTasks() {
+    for (ExternalTaskAvailabilityListener listener : listeners) {
+      try {
+        listener.tasksAvailable();
+      } catch (Exception e) {
+        log.warn("Could not publish available tasks", e);
+      }
+    }
+  }
+
+}
@@ -1,21 +1,32 @@
 package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
 
+import java.io.ByteArrayInputStream;
 import java.net.HttpURLConnection;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.camunda.bpm.engine.BadUserRequestException;
 import org.camunda.bpm.engine.ExternalTaskService;
 import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RuntimeService;
 import org.camunda.bpm.engine.exception.NotFoundException;
+import org.camunda.bpm.engine.exception.NullValueException;
+import org.camunda.bpm.engine.externaltask.ExternalTask;
 import org.camunda.bpm.engine.externaltask.ExternalTaskQueryBuilder;
 import org.camunda.bpm.engine.externaltask.ExternalTaskQueryTopicBuilder;
 import org.camunda.bpm.engine.externaltask.LockedExternalTask;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
 import org.camunda.bpm.engine.variable.VariableMap;
 import org.camunda.bpm.engine.variable.Variables;
 import org.camunda.bpm.engine.variable.impl.type.PrimitiveValueTypeImpl.DateTypeImpl;
@@ -24,28 +35,45 @@ import org.camunda.bpm.engine.variable.type.PrimitiveValueType;
 import org.camunda.bpm.engine.variable.type.SerializableValueType;
 import org.camunda.bpm.engine.variable.type.ValueType;
 import org.camunda.bpm.engine.variable.type.ValueTypeResolver;
+import org.camunda.bpm.engine.variable.value.BytesValue;
+import org.camunda.bpm.engine.variable.value.FileValue;
 import org.camunda.bpm.engine.variable.value.TypedValue;
+import org.camunda.bpm.grpc.CompleteAndFetchRequest;
+import org.camunda.bpm.grpc.CompleteAndFetchResponse;
+import org.camunda.bpm.grpc.CompleteBatchRequest;
+import org.camunda.bpm.grpc.CompleteBatchResponse;
 import org.camunda.bpm.grpc.CompleteRequest;
 import org.camunda.bpm.grpc.CompleteResponse;
+import org.camunda.bpm.grpc.CompleteResult;
+import org.camunda.bpm.grpc.CompleteUploadRequest;
 import org.camunda.bpm.grpc.ExtendLockRequest;
 import org.camunda.bpm.grpc.ExtendLockResponse;
 import org.camunda.bpm.grpc.ExternalTaskGrpc.ExternalTaskImplBase;
 import org.camunda.bpm.grpc.FetchAndLockRequest;
 import org.camunda.bpm.grpc.FetchAndLockRequest.FetchExternalTaskTopic;
 import org.camunda.bpm.grpc.FetchAndLockResponse;
+import org.camunda.bpm.grpc.GetBinaryVariableRequest;
+import org.camunda.bpm.grpc.GetBinaryVariableResponse;
+import org.camunda.bpm.grpc.GetVariablesRequest;
+import org.camunda.bpm.grpc.GetVariablesResponse;
 import org.camunda.bpm.grpc.HandleBpmnErrorRequest;
 import org.camunda.bpm.grpc.HandleBpmnErrorResponse;
 import org.camunda.bpm.grpc.HandleFailureRequest;
 import org.camunda.bpm.grpc.HandleFailureResponse;
+import org.camunda.bpm.grpc.LockedExternalTaskDto;
+import org.camunda.bpm.grpc.OutcomeRequest;
+import org.camunda.bpm.grpc.OutcomeResponse;
 import org.camunda.bpm.grpc.TypedValueFieldDto;
 import org.camunda.bpm.grpc.UnlockRequest;
 import org.camunda.bpm.grpc.UnlockResponse;
 import org.camunda.bpm.grpc.core.VariableUtils;
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.EngineCallExecutor.Lane;
 import org.lognet.springboot.grpc.GRpcService;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 
@@ -62,20 +90,57 @@ public class ExternalTaskServiceGrpc extends ExternalTaskImplBase {
   @Autowired
   private WaitingClientInformer informer;
 
+  @Autowired
+  private GrpcExternalTaskProperties properties;
+
+  @Autowired
+  private EngineCallExecutor engineCallExecutor;
+
+  @Autowired
+  private GroupedCommandExecutor groupedCommandExecutor;
+
+  @Autowired(required = false)
+  private GroupCommitter groupCommitter;
+
   @Override
   public StreamObserver<FetchAndLockRequest> fetchAndLock(StreamObserver<FetchAndLockResponse> responseObserver) {
+    OutboundStreamObserver<FetchAndLockResponse> client = new OutboundStreamObserver<>(
+        (ServerCallStreamObserver<FetchAndLockResponse>) responseObserver, properties.getMaxBufferedResponses(), this::unlockTasks);
     StreamObserver<FetchAndLockRequest> requestObserver = new StreamObserver<FetchAndLockRequest>() {
 
+      // the requests of a stream are served one after the other, so a later
+      // credit grant or subscription change never overtakes an earlier one
+      private final Queue<FetchAndLockRequest> pendingRequests = new ConcurrentLinkedQueue<>();
+      private final AtomicInteger pendingCount = new AtomicInteger();
+
       @Override
       public void onNext(FetchAndLockRequest request) {
-        informClient(request, responseObserver);
+        pendingRequests.add(request);
+        if (pendingCount.getAndIncrement() == 0 && !engineCallExecutor.execute(Lane.HEAVY, this::servePendingRequests)) {
+          // do not fail the stream, the requests are served on the next wake-up
+          log.debug("Deferring fetch and lock requests, heavy lane is exhausted");
+          do {
+            informer.deferClient(pendingRequests.poll(), client);
+          } while (pendingCount.decrementAndGet() > 0);
+        }
+      }
+
+      private void servePendingRequests() {
+        do {
+          FetchAndLockRequest request = pendingRequests.poll();
+          try {
+            informClient(request, client);
+          } catch (Exception e) {
+            log.error("Could not serve fetch and lock request of worker " + request.getWorkerId(), e);
+          }
+        } while (pendingCount.decrementAndGet() > 0);
       }
 
       @Override
       public void onError(Throwable t) {
         if (Status.CANCELLED.getCode().equals(Status.fromThrowable(t).getCode())) {
           log.info("Client disconnected, removing pending request");
-          informer.removeClientRequests(responseObserver);
+          informer.removeClientRequests(client);
         } else {
           log.error("Server received error", t);
         }
@@ -83,8 +148,8 @@ public class ExternalTaskServiceGrpc extends ExternalTaskImplBase {
 
       @Override
       public void onCompleted() {
-        informer.removeClientRequests(responseObserver);
-        responseObserver.onCompleted();
+        informer.removeClientRequests(client);
+        client.onCompleted();
       }
     };
     return requestObserver;
@@ -92,63 +157,281 @@ public class ExternalTaskServiceGrpc extends ExternalTaskImplBase {
 
   @Override
   public void complete(CompleteRequest request, StreamObserver<CompleteResponse> responseObserver) {
+    engineCallExecutor.execute(Lane.HEAVY, responseObserver, () -> doComplete(request, responseObserver));
+  }
+
+  protected void doComplete(CompleteRequest request, StreamObserver<CompleteResponse> responseObserver) {
+    Runnable operation;
     try {
-      VariableMap variables = fromTypedValueFields(request.getVariablesMap());
-      VariableMap localVariables = fromTypedValueFields(request.getLocalVariablesMap());
-      externalTaskService.complete(request.getId(), request.getWorkerId(), variables, localVariables);
-      responseObserver.onNext(CompleteResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build());
+      operation = createCompleteOperation(request);
+    } catch (Exception e) {
+      respond(request.getId(), request.getWorkerId(), "completing", e, null, responseObserver);
+      return;
+    }
+    executeOutcome(operation, e -> respond(request.getId(), request.getWorkerId(), "completing", e,
+        CompleteResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build(), responseObserver));
+  }
+
+  @Override
+  public StreamObserver<CompleteUploadRequest> completeWithFiles(StreamObserver<CompleteResponse> responseObserver) {
+    return new FileUploadObserver(this, engineCallExecutor, properties.getMaxUploadSize(), responseObserver);
+  }
+
+  protected void doCompleteWithFiles(CompleteRequest request, VariableMap files, VariableMap localFiles, StreamObserver<CompleteResponse> responseObserver) {
+    VariableMap variables;
+    VariableMap localVariables;
+    try {
+      variables = fromTypedValueFields(request.getVariablesMap());
+      variables.putAll(files);
+      localVariables = fromTypedValueFields(request.getLocalVariablesMap());
+      localVariables.putAll(localFiles);
+    } catch (Exception e) {
+      respond(request.getId(), request.getWorkerId(), "completing", e, null, responseObserver);
+      return;
+    }
+    executeOutcome(() -> externalTaskService.complete(request.getId(), request.getWorkerId(), variables, localVariables),
+        e -> respond(request.getId(), request.getWorkerId(), "completing", e,
+            CompleteResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build(), responseObserver));
+  }
+
+  protected Runnable createCompleteOperation(CompleteRequest request) {
+    VariableMap variables = fromTypedValueFields(request.getVariablesMap());
+    VariableMap localVariables = fromTypedValueFields(request.getLocalVariablesMap());
+    return () -> externalTaskService.complete(request.getId(), request.getWorkerId(), variables, localVariables);
+  }
+
+  @Override
+  public void completeBatch(CompleteBatchRequest request, StreamObserver<CompleteBatchResponse> responseObserver) {
+    engineCallExecutor.execute(Lane.HEAVY, responseObserver, () -> doCompleteBatch(request, responseObserver));
+  }
+
+  protected void doCompleteBatch(CompleteBatchRequest request, StreamObserver<CompleteBatchResponse> responseObserver) {
+    try {
+      List<CompleteResult.Builder> results = new ArrayList<>();
+      List<Runnable> group = new ArrayList<>();
+      List<CompleteResult.Builder> groupResults = new ArrayList<>();
+      for (CompleteRequest completeRequest : request.getRequestsList()) {
+        CompleteResult.Builder result = CompleteResult.newBuilder().setId(completeRequest.getId());
+        results.add(result);
+        try {
+          VariableMap variables = fromTypedValueFields(completeRequest.getVariablesMap());
+          VariableMap localVariables = fromTypedValueFields(completeRequest.getLocalVariablesMap());
+          group.add(() -> externalTaskService.complete(completeRequest.getId(), completeRequest.getWorkerId(), variables, localVariables));
+          groupResults.add(result);
+        } catch (Exception e) {
+          log.debug("Could not convert variables for task {}", completeRequest.getId(), e);
+          result.setStatus(HttpURLConnection.HTTP_BAD_REQUEST).setErrorMessage(VariableUtils.getSafe(e.getMessage()));
+        }
+        if (group.size() >= properties.getBatchGroupSize()) {
+          completeGroup(group, groupResults);
+        }
+      }
+      completeGroup(group, groupResults);
+
+      CompleteBatchResponse.Builder response = CompleteBatchResponse.newBuilder();
+      results.forEach(response::addResults);
+      responseObserver.onNext(response.build());
       responseObserver.onCompleted();
-    } catch (NotFoundException nfe) {
-      log.debug("Task with id {} not found", request.getId());
-      responseObserver.onError(createStatusRuntimeException(Status.NOT_FOUND, nfe));
-    } catch (BadUserRequestException bure) {
-      log.debug("Task with id {} not locked by worker {}", request.getId(), request.getWorkerId());
-      responseObserver.onError(createStatusRuntimeException(Status.PERMISSION_DENIED, bure));
     } catch (Exception e) {
-      log.error("Error on completing task " + request.getId(), e);
+      log.error("Error on completing batch of " + request.getRequestsCount() + " tasks", e);
       responseObserver.onError(createStatusRuntimeException(Status.INTERNAL, e));
     }
   }
 
+  protected void completeGroup(List<Runnable> group, List<CompleteResult.Builder> groupResults) {
+    List<Exception> exceptions = groupedCommandExecutor.execute(group);
+    for (int i = 0; i < exceptions.size(); i++) {
+      Exception exception = exceptions.get(i);
+      CompleteResult.Builder result = groupResults.get(i);
+      if (exception == null) {
+        result.setStatus(HttpURLConnection.HTTP_NO_CONTENT);
+      } else {
+        log.debug("Error on completing task {} of batch", result.getId(), exception);
+        result.setStatus(toHttpStatus(exception)).setErrorMessage(VariableUtils.getSafe(exception.getMessage()));
+      }
+    }
+    group.clear();
+    groupResults.clear();
+  }
+
+  protected static int toHttpStatus(Exception e) {
+    if (e instanceof NotFoundException) {
+      return HttpURLConnection.HTTP_NOT_FOUND;
+    }
+    if (e instanceof BadUserRequestException) {
+      return isLockedByOtherWorker((BadUserRequestException) e) ? HttpURLConnection.HTTP_FORBIDDEN : HttpURLConnection.HTTP_BAD_REQUEST;
+    }
+    return HttpURLConnection.HTTP_INTERNAL_ERROR;
+  }
+
+  protected static boolean isLockedByOtherWorker(BadUserRequestException e) {
+    // the engine does not tell worker violations apart by type, only by message
+    return e.getMessage() != null && e.getMessage().contains("It is locked by worker");
+  }
+
   @Override
-  public void handleFailure(HandleFailureRequest request, StreamObserver<HandleFailureResponse> responseObserver) {
+  public void completeAndFetch(CompleteAndFetchRequest request, StreamObserver<CompleteAndFetchResponse> responseObserver) {
+    engineCallExecutor.execute(Lane.HEAVY, responseObserver, () -> doCompleteAndFetch(request, responseObserver));
+  }
+
+  protected void doCompleteAndFetch(CompleteAndFetchRequest request, StreamObserver<CompleteAndFetchResponse> responseObserver) {
+    CompleteRequest completeRequest = request.getComplete();
+    CompleteAndFetchResponse.Builder response = CompleteAndFetchResponse.newBuilder();
     try {
-      externalTaskService.handleFailure(request.getId(), request.getWorkerId(), request.getErrorMessage(), request.getErrorDetails(), request.getRetries(),
-          request.getRetryTimeout());
-      responseObserver.onNext(HandleFailureResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build());
-      responseObserver.onCompleted();
-    } catch (NotFoundException nfe) {
-      log.debug("Task with id {} not found", request.getId());
-      responseObserver.onError(createStatusRuntimeException(Status.NOT_FOUND, nfe));
-    } catch (BadUserRequestException bure) {
-      log.debug("Task with id {} not locked by worker {}", request.getId(), request.getWorkerId());
-      responseObserver.onError(createStatusRuntimeException(Status.PERMISSION_DENIED, bure));
+      createCompleteOperation(completeRequest).run();
+      response.setStatus(HttpURLConnection.HTTP_NO_CONTENT);
     } catch (Exception e) {
-      log.error("Error on handling failure for task " + request.getId(), e);
-      responseObserver.onError(e);
+      log.debug("Error on completing task {}", completeRequest.getId(), e);
+      response.setStatus(toHttpStatus(e)).setErrorMessage(VariableUtils.getSafe(e.getMessage()));
+    }
+
+    List<LockedExternalTask> lockedTasks = new ArrayList<>();
+    if (response.getStatus() == HttpURLConnection.HTTP_NO_CONTENT && request.hasFetch() && request.getFetch().getMaxTasks() > 0) {
+      try {
+        lockedTasks = createQuery(request.getFetch()).execute();
+      } catch (Exception e) {
+        // the completion is reported anyway, the client fetches on its stream
+        log.warn("Could not lock next tasks after completing task " + completeRequest.getId(), e);
+      }
+    }
+    if (!lockedTasks.isEmpty() && ((ServerCallStreamObserver<CompleteAndFetchResponse>) responseObserver).isCancelled()) {
+      log.debug("Client disconnected, unlocking {} fetched tasks", lockedTasks.size());
+      unlockTasks(lockedTasks);
+      return;
     }
+    response.addAllTasks(fromLockedTasks(request.getFetch(), lockedTasks).getTasksList());
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void handleFailure(HandleFailureRequest request, StreamObserver<HandleFailureResponse> responseObserver) {
+    engineCallExecutor.execute(Lane.HEAVY, responseObserver, () -> doHandleFailure(request, responseObserver));
+  }
+
+  protected void doHandleFailure(HandleFailureRequest request, StreamObserver<HandleFailureResponse> responseObserver) {
+    executeOutcome(createHandleFailureOperation(request),
+        e -> respond(request.getId(), request.getWorkerId(), "handling failure for", e,
+            HandleFailureResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build(), responseObserver));
+  }
+
+  protected Runnable createHandleFailureOperation(HandleFailureRequest request) {
+    return () -> externalTaskService.handleFailure(request.getId(), request.getWorkerId(), request.getErrorMessage(), request.getErrorDetails(),
+        request.getRetries(), request.getRetryTimeout());
   }
 
   @Override
   public void handleBpmnError(HandleBpmnErrorRequest request, StreamObserver<HandleBpmnErrorResponse> responseObserver) {
+    engineCallExecutor.execute(Lane.HEAVY, responseObserver, () -> doHandleBpmnError(request, responseObserver));
+  }
+
+  protected void doHandleBpmnError(HandleBpmnErrorRequest request, StreamObserver<HandleBpmnErrorResponse> responseObserver) {
+    Runnable operation;
     try {
-      externalTaskService.handleBpmnError(request.getId(), request.getWorkerId(), request.getErrorCode(), request.getErrorMessage());
-      responseObserver.onNext(HandleBpmnErrorResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build());
-      responseObserver.onCompleted();
-    } catch (NotFoundException nfe) {
-      log.debug("Task with id {} not found", request.getId());
-      responseObserver.onError(createStatusRuntimeException(Status.NOT_FOUND, nfe));
-    } catch (BadUserRequestException bure) {
-      log.debug("Task with id {} not locked by worker {}", request.getId(), request.getWorkerId());
-      responseObserver.onError(createStatusRuntimeException(Status.PERMISSION_DENIED, bure));
+      operation = createHandleBpmnErrorOperation(request);
     } catch (Exception e) {
-      log.error("Error on handling BPMN error for task " + request.getId(), e);
-      responseObserver.onError(e);
+      respond(request.getId(), request.getWorkerId(), "handling BPMN error for", e, null, responseObserver);
+      return;
+    }
+    executeOutcome(operation, e -> respond(request.getId(), request.getWorkerId(), "handling BPMN error for", e,
+        HandleBpmnErrorResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build(), responseObserver));
+  }
+
+  protected Runnable createHandleBpmnErrorOperation(HandleBpmnErrorRequest request) {
+    VariableMap variables = fromTypedValueFields(request.getVariablesMap());
+    return () -> externalTaskService.handleBpmnError(request.getId(), request.getWorkerId(), request.getErrorCode(), request.getErrorMessage(), variables);
+  }
+
+  /**
+   * Executes a task outcome right away or, with group commit enabled, together
+   * with concurrently arriving outcomes in one transaction. The callback
+   * receives the exception of the operation or <code>null</code> on success.
+   */
+  protected void executeOutcome(Runnable operation, Consumer<Exception> callback) {
+    if (groupCommitter != null && groupCommitter.submit(operation, callback)) {
+      return;
+    }
+    executeDirectly(operation, callback);
+  }
+
+  protected static void executeDirectly(Runnable operation, Consumer<Exception> callback) {
+    Exception exception = null;
+    try {
+      operation.run();
+    } catch (Exception e) {
+      exception = e;
+    }
+    callback.accept(exception);
+  }
+
+  protected <T> void respond(String taskId, String workerId, String action, Exception exception, T response, StreamObserver<T> responseObserver) {
+    if (exception == null) {
+      responseObserver.onNext(response);
+      responseObserver.onCompleted();
+    } else if (exception instanceof NotFoundException) {
+      log.debug("Task with id {} not found", taskId);
+      responseObserver.onError(createStatusRuntimeException(Status.NOT_FOUND, exception));
+    } else if (exception instanceof BadUserRequestException) {
+      log.debug("Task with id {} not locked by worker {}", taskId, workerId);
+      responseObserver.onError(createStatusRuntimeException(Status.PERMISSION_DENIED, exception));
+    } else {
+      log.error("Error on " + action + " task " + taskId, exception);
+      responseObserver.onError(createStatusRuntimeException(Status.INTERNAL, exception));
+    }
+  }
+
+  @Override
+  public StreamObserver<OutcomeRequest> reportOutcomes(StreamObserver<OutcomeResponse> responseObserver) {
+    OutboundStreamObserver<OutcomeResponse> client = new OutboundStreamObserver<>(
+        (ServerCallStreamObserver<OutcomeResponse>) responseObserver, properties.getMaxBufferedResponses(),
+        response -> log.debug("Could not deliver response for outcome {}", response.getCorrelationId()));
+    return new OutcomeStreamObserver(this, engineCallExecutor, client);
+  }
+
+  /**
+   * Executes an outcome received over the outcome stream. Completions, failures
+   * and BPMN errors take part in group commit, lock extensions and unlocks are
+   * executed right away.
+   */
+  protected void executeOutcome(OutcomeRequest request, Consumer<Exception> callback) {
+    switch (request.getOutcomeCase()) {
+    case COMPLETE:
+      executeOutcome(createCompleteOperation(request.getComplete()), callback);
+      break;
+    case FAILURE:
+      executeOutcome(createHandleFailureOperation(request.getFailure()), callback);
+      break;
+    case BPMNERROR:
+      executeOutcome(createHandleBpmnErrorOperation(request.getBpmnError()), callback);
+      break;
+    case EXTENDLOCK:
+      ExtendLockRequest extendLock = request.getExtendLock();
+      executeDirectly(() -> externalTaskService.extendLock(extendLock.getId(), extendLock.getWorkerId(), extendLock.getDuration()), callback);
+      break;
+    case UNLOCK:
+      executeDirectly(() -> externalTaskService.unlock(request.getUnlock().getId()), callback);
+      break;
+    default:
+      throw new IllegalArgumentException("No outcome given for correlation id " + request.getCorrelationId());
+    }
+  }
+
+  protected static Lane getLane(OutcomeRequest request) {
+    switch (request.getOutcomeCase()) {
+    case EXTENDLOCK:
+    case UNLOCK:
+      return Lane.CONTROL;
+    default:
+      return Lane.HEAVY;
     }
   }
 
   @Override
   public void unlock(UnlockRequest request, StreamObserver<UnlockResponse> responseObserver) {
+    engineCallExecutor.execute(Lane.CONTROL, responseObserver, () -> doUnlock(request, responseObserver));
+  }
+
+  protected void doUnlock(UnlockRequest request, StreamObserver<UnlockResponse> responseObserver) {
     try {
       externalTaskService.unlock(request.getId());
       responseObserver.onNext(UnlockResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build());
@@ -164,6 +447,10 @@ public class ExternalTaskServiceGrpc extends ExternalTaskImplBase {
 
   @Override
   public void extendLock(ExtendLockRequest request, StreamObserver<ExtendLockResponse> responseObserver) {
+    engineCallExecutor.execute(Lane.CONTROL, responseObserver, () -> doExtendLock(request, responseObserver));
+  }
+
+  protected void doExtendLock(ExtendLockRequest request, StreamObserver<ExtendLockResponse> responseObserver) {
     try {
       externalTaskService.extendLock(request.getId(), request.getWorkerId(), request.getDuration());
       responseObserver.onNext(ExtendLockResponse.newBuilder().setStatus(HttpURLConnection.HTTP_NO_CONTENT).build());
@@ -180,11 +467,111 @@ public class ExternalTaskServiceGrpc extends ExternalTaskImplBase {
     }
   }
 
+  @Override
+  public void getVariables(GetVariablesRequest request, StreamObserver<GetVariablesResponse> responseObserver) {
+    engineCallExecutor.execute(Lane.HEAVY, responseObserver, () -> doGetVariables(request, responseObserver));
+  }
+
+  protected void doGetVariables(GetVariablesRequest request, StreamObserver<GetVariablesResponse> responseObserver) {
+    try {
+      ExternalTask task = externalTaskService.createExternalTaskQuery()
+          .externalTaskId(request.getTaskId())
+          .singleResult();
+      if (task == null) {
+        log.debug("External task with id {} not found", request.getTaskId());
+        responseObserver.onError(Status.NOT_FOUND.withDescription("External task with id " + request.getTaskId() + " not found").asRuntimeException());
+        return;
+      }
+      if (!isLockedBy(task, request.getWorkerId())) {
+        log.debug("External task with id {} is not locked by worker {}", request.getTaskId(), request.getWorkerId());
+        responseObserver.onError(Status.PERMISSION_DENIED
+            .withDescription("External task with id " + request.getTaskId() + " is not locked by worker " + request.getWorkerId())
+            .asRuntimeException());
+        return;
+      }
+      RuntimeService runtimeService = processEngine.getRuntimeService();
+      VariableMap variables = request.getLocalVariables()
+          ? runtimeService.getVariablesLocalTyped(task.getExecutionId(), request.getVariableNamesList(), request.getDeserializeValues())
+          : runtimeService.getVariablesTyped(task.getExecutionId(), request.getVariableNamesList(), request.getDeserializeValues());
+      responseObserver.onNext(GetVariablesResponse.newBuilder()
+          .putAllVariables(VariableUtils.toTypedValueFields(variables, request.getValueEncoding()))
+          .build());
+      responseObserver.onCompleted();
+    } catch (NullValueException | NotFoundException e) {
+      log.debug("Execution of external task with id {} not found", request.getTaskId());
+      responseObserver.onError(createStatusRuntimeException(Status.NOT_FOUND, e));
+    } catch (Exception e) {
+      log.error("Error on getting variables of external task " + request.getTaskId(), e);
+      responseObserver.onError(createStatusRuntimeException(Status.INTERNAL, e));
+    }
+  }
+
+  protected static boolean isLockedBy(ExternalTask task, String workerId) {
+    return workerId.equals(task.getWorkerId())
+        && task.getLockExpirationTime() != null
+        && task.getLockExpirationTime().after(ClockUtil.getCurrentTime());
+  }
+
+  protected boolean isLockedByWorker(String executionId, String workerId) {
+    return !workerId.isEmpty() && externalTaskService.createExternalTaskQuery()
+        .executionId(executionId)
+        .workerId(workerId)
+        .locked()
+        .count() > 0;
+  }
+
+  @Override
+  public void getLocalBinaryVariable(GetBinaryVariableRequest request, StreamObserver<GetBinaryVariableResponse> responseObserver) {
+    // the sender registers its handlers while the call is initialized
+    ChunkedContentSender sender = new ChunkedContentSender((ServerCallStreamObserver<GetBinaryVariableResponse>) responseObserver,
+        properties.getBinaryChunkSize());
+    if (!engineCallExecutor.execute(Lane.HEAVY, () -> doGetLocalBinaryVariable(request, sender))) {
+      sender.fail(Status.RESOURCE_EXHAUSTED.withDescription("Too many pending heavy calls").asRuntimeException());
+    }
+  }
+
+  protected void doGetLocalBinaryVariable(GetBinaryVariableRequest request, ChunkedContentSender sender) {
+    // older clients send the id of the execution as process instance id
+    String executionId = request.getExecutionId().isEmpty() ? request.getProcessInstanceId() : request.getExecutionId();
+    try {
+      if (!isLockedByWorker(executionId, request.getWorkerId())) {
+        log.debug("No external task of execution {} is locked by worker {}", executionId, request.getWorkerId());
+        sender.fail(Status.PERMISSION_DENIED
+            .withDescription("No external task of execution " + executionId + " is locked by worker " + request.getWorkerId())
+            .asRuntimeException());
+        return;
+      }
+      TypedValue value = processEngine.getRuntimeService().getVariableLocalTyped(executionId, request.getVariableName(), true);
+      if (value instanceof FileValue) {
+        sender.start(((FileValue) value).getValue());
+      } else if (value instanceof BytesValue) {
+        byte[] bytes = ((BytesValue) value).getValue();
+        sender.start(new ByteArrayInputStream(bytes == null ? new byte[0] : bytes));
+      } else if (value == null) {
+        log.debug("Variable {} not found for execution {}", request.getVariableName(), executionId);
+        sender.fail(Status.NOT_FOUND.withDescription("Variable " + request.getVariableName() + " not found").asRuntimeException());
+      } else {
+        sender.fail(Status.INVALID_ARGUMENT.withDescription("Variable " + request.getVariableName() + " is not binary").asRuntimeException());
+      }
+    } catch (NullValueException | NotFoundException e) {
+      log.debug("Execution with id {} not found", executionId);
+      sender.fail(createStatusRuntimeException(Status.NOT_FOUND, e));
+    } catch (Exception e) {
+      log.error("Error on getting binary variable " + request.getVariableName() + " of execution " + executionId, e);
+      sender.fail(createStatusRuntimeException(Status.INTERNAL, e));
+    }
+  }
+
   protected static StatusRuntimeException createStatusRuntimeException(Status status, Exception e) {
     return status.withDescription(e.getMessage()).withCause(e).asRuntimeException();
   }
 
   protected void informClient(FetchAndLockRequest request, StreamObserver<FetchAndLockResponse> client) {
+    if (request.getCreditBased()) {
+      // credit based clients are served as long as they have credits left
+      informer.grantCredits(request, client);
+      return;
+    }
     ExternalTaskQueryBuilder fetchBuilder = createQuery(request);
     List<LockedExternalTask> lockedTasks = fetchBuilder.execute();
     if (lockedTasks.isEmpty()) {
@@ -192,47 +579,190 @@ public class ExternalTaskServiceGrpc extends ExternalTaskImplBase {
       // notify later when external task created for the topic in the engine
       informer.addWaitingClient(request, client);
     } else {
-      FetchAndLockResponse reply = fromLockedTask(request, lockedTasks);
+      FetchAndLockResponse reply = fromLockedTasks(request, lockedTasks);
       client.onNext(reply);
     }
   }
 
-  protected FetchAndLockResponse fromLockedTask(FetchAndLockRequest request, List<LockedExternalTask> lockedTasks) {
+  /**
+   * Locks tasks for several workers sharing the filters of the request with
+   * one query. The tasks are locked by the worker of the request and handed
+   * round robin to the workers in the same command, so every task ends up
+   * locked by the worker it is delivered to.
+   *
+   * @param workerIds
+   *          the workers to lock tasks for
+   * @param maxTasks
+   *          the number of tasks each worker is able to take
+   * @return the tasks locked for each worker, in the order of the workers
+   */
+  protected List<List<LockedExternalTask>> fetchAndLockForWorkers(FetchAndLockRequest request, List<String> workerIds, List<Integer> maxTasks) {
+    int totalTasks = maxTasks.stream().mapToInt(Integer::intValue).sum();
+    ProcessEngineConfigurationImpl configuration = (ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration();
+    return configuration.getCommandExecutorTxRequired().execute(commandContext -> {
+      // the nested fetch and lock joins the command context
+      List<LockedExternalTask> lockedTasks = createQuery(request, totalTasks).execute();
+      List<List<LockedExternalTask>> tasksPerWorker = new ArrayList<>();
+      for (int i = 0; i < workerIds.size(); i++) {
+        tasksPerWorker.add(new ArrayList<>());
+      }
+      int worker = 0;
+      for (LockedExternalTask lockedTask : lockedTasks) {
+        while (tasksPerWorker.get(worker).size() >= maxTasks.get(worker)) {
+          worker = (worker + 1) % workerIds.size();
+        }
+        tasksPerWorker.get(worker).add(lockedTask);
+        if (!workerIds.get(worker).equals(request.getWorkerId())) {
+          commandContext.getExternalTaskManager().findExternalTaskById(lockedTask.getId()).setWorkerId(workerIds.get(worker));
+        }
+        worker = (worker + 1) % workerIds.size();
+      }
+      return tasksPerWorker;
+    });
+  }
+
+  /**
+   * @return the currently locked task of the topic that becomes fetchable
+   *         again first, i.e. its lock or retry timeout expires, or
+   *         <code>null</code> if there is no such task
+   */
+  protected ExternalTask getNextDueTask(String topicName) {
+    List<ExternalTask> tasks = externalTaskService.createExternalTaskQuery()
+        .topicName(topicName)
+        .locked()
+        .withRetriesLeft()
+        .active()
+        .orderByLockExpirationTime().asc()
+        .listPage(0, 1);
+    return tasks.isEmpty() ? null : tasks.get(0);
+  }
+
+  /**
+   * @return whether the task still exists and can be fetched now
+   */
+  protected boolean isFetchable(String taskId) {
+    return externalTaskService.createExternalTaskQuery()
+        .externalTaskId(taskId)
+        .notLocked()
+        .withRetriesLeft()
+        .active()
+        .count() > 0;
+  }
+
+  protected void unlockTasks(List<LockedExternalTask> lockedTasks) {
+    for (LockedExternalTask lockedTask : lockedTasks) {
+      try {
+        externalTaskService.unlock(lockedTask.getId());
+      } catch (Exception e) {
+        log.warn("Could not unlock task " + lockedTask.getId(), e);
+      }
+    }
+  }
+
+  protected void unlockTasks(FetchAndLockResponse undeliverableResponse) {
+    List<String> taskIds = new ArrayList<>();
+    if (!undeliverableResponse.getId().isEmpty()) {
+      taskIds.add(undeliverableResponse.getId());
+    }
+    for (LockedExternalTaskDto lockedTask : undeliverableResponse.getTasksList()) {
+      taskIds.add(lockedTask.getId());
+    }
+    for (String taskId : taskIds) {
+      try {
+        externalTaskService.unlock(taskId);
+      } catch (Exception e) {
+        log.warn("Could not unlock undeliverable task " + taskId, e);
+      }
+    }
+  }
+
+  protected FetchAndLockResponse fromLockedTasks(FetchAndLockRequest request, List<LockedExternalTask> lockedTasks) {
+    if (request.getMaxTasks() <= 0 && lockedTasks.size() == 1) {
+      // clients not sending maxTasks expect the single task in the response itself
+      return toSingleTaskResponse(request, lockedTasks.get(0));
+    }
+    FetchAndLockResponse.Builder reply = FetchAndLockResponse.newBuilder()
+        .setValueEncoding(request.getValueEncoding());
+    for (LockedExternalTask lockedTask : lockedTasks) {
+      reply.addTasks(fromLockedTask(request, lockedTask));
+    }
+    return reply.build();
+  }
+
+  protected FetchAndLockResponse toSingleTaskResponse(FetchAndLockRequest request, LockedExternalTask lockedTask) {
+    LockedExternalTaskDto task = fromLockedTask(request, lockedTask);
     return FetchAndLockResponse.newBuilder()
-      .setId(VariableUtils.getSafe(lockedTasks.get(0).getId()))
-      .setWorkerId(VariableUtils.getSafe(request.getWorkerId()))
-      .setTopicName(VariableUtils.getSafe(lockedTasks.get(0).getTopicName()))
-      .setLockExpirationTime(VariableUtils.getTimestamp(lockedTasks.get(0).getLockExpirationTime()))
-      .setRetries(VariableUtils.getSafe(lockedTasks.get(0).getRetries()))
-      .setErrorMessage(VariableUtils.getSafe(lockedTasks.get(0).getErrorMessage()))
-      .setErrorDetails(VariableUtils.getSafe(lockedTasks.get(0).getErrorDetails()))
-      .setProcessInstanceId(VariableUtils.getSafe(lockedTasks.get(0).getProcessInstanceId()))
-      .setExecutionId(VariableUtils.getSafe(lockedTasks.get(0).getExecutionId()))
-      .setActivityId(VariableUtils.getSafe(lockedTasks.get(0).getActivityId()))
-      .setActivityInstanceId(VariableUtils.getSafe(lockedTasks.get(0).getActivityInstanceId()))
-      .setProcessDefinitionId(VariableUtils.getSafe(lockedTasks.get(0).getProcessDefinitionId()))
-      .setProcessDefinitionKey(VariableUtils.getSafe(lockedTasks.get(0).getProcessDefinitionKey()))
-      .setProcessDefinitionVersionTag(VariableUtils.getSafe(lockedTasks.get(0).getProcessDefinitionVersionTag()))
-      .setTenantId(VariableUtils.getSafe(lockedTasks.get(0).getTenantId()))
-      .setPriority(lockedTasks.get(0).getPriority())
-      .setBusinessKey(VariableUtils.getSafe(lockedTasks.get(0).getBusinessKey()))
-      .putAllExtensionProperties(lockedTasks.get(0).getExtensionProperties())
-      .putAllVariables(VariableUtils.toTypedValueFields(lockedTasks.get(0).getVariables()))
+      .setId(task.getId())
+      .setWorkerId(task.getWorkerId())
+      .setTopicName(task.getTopicName())
+      .setLockExpirationTime(task.getLockExpirationTime())
+      .setRetries(task.getRetries())
+      .setErrorMessage(task.getErrorMessage())
+      .setErrorDetails(task.getErrorDetails())
+      .setProcessInstanceId(task.getProcessInstanceId())
+      .setExecutionId(task.getExecutionId())
+      .setActivityId(task.getActivityId())
+      .setActivityInstanceId(task.getActivityInstanceId())
+      .setProcessDefinitionId(task.getProcessDefinitionId())
+      .setProcessDefinitionKey(task.getProcessDefinitionKey())
+      .setProcessDefinitionVersionTag(task.getProcessDefinitionVersionTag())
+      .setTenantId(task.getTenantId())
+      .setPriority(task.getPriority())
+      .setBusinessKey(task.getBusinessKey())
+      .putAllExtensionProperties(task.getExtensionPropertiesMap())
+      .putAllVariables(task.getVariablesMap())
+      .setValueEncoding(request.getValueEncoding())
       .build();
   }
 
+  protected LockedExternalTaskDto fromLockedTask(FetchAndLockRequest request, LockedExternalTask lockedTask) {
+    LockedExternalTaskDto.Builder dto = LockedExternalTaskDto.newBuilder()
+      .setId(VariableUtils.getSafe(lockedTask.getId()))
+      .setWorkerId(VariableUtils.getSafe(request.getWorkerId()))
+      .setTopicName(VariableUtils.getSafe(lockedTask.getTopicName()))
+      .setLockExpirationTime(VariableUtils.getTimestamp(lockedTask.getLockExpirationTime()))
+      .setRetries(VariableUtils.getSafe(lockedTask.getRetries()))
+      .setErrorMessage(VariableUtils.getSafe(lockedTask.getErrorMessage()))
+      .setErrorDetails(VariableUtils.getSafe(lockedTask.getErrorDetails()))
+      .setProcessInstanceId(VariableUtils.getSafe(lockedTask.getProcessInstanceId()))
+      .setExecutionId(VariableUtils.getSafe(lockedTask.getExecutionId()))
+      .setActivityId(VariableUtils.getSafe(lockedTask.getActivityId()))
+      .setActivityInstanceId(VariableUtils.getSafe(lockedTask.getActivityInstanceId()))
+      .setProcessDefinitionId(VariableUtils.getSafe(lockedTask.getProcessDefinitionId()))
+      .setProcessDefinitionKey(VariableUtils.getSafe(lockedTask.getProcessDefinitionKey()))
+      .setProcessDefinitionVersionTag(VariableUtils.getSafe(lockedTask.getProcessDefinitionVersionTag()))
+      .setTenantId(VariableUtils.getSafe(lockedTask.getTenantId()))
+      .setPriority(lockedTask.getPriority())
+      .setBusinessKey(VariableUtils.getSafe(lockedTask.getBusinessKey()))
+      .putAllExtensionProperties(lockedTask.getExtensionProperties());
+    if (request.getLazyVariables()) {
+      VariableMap variables = lockedTask.getVariables();
+      for (String variableName : variables.keySet()) {
+        ValueType type = variables.getValueTyped(variableName).getType();
+        dto.putVariableTypes(variableName, type == null ? "" : type.getName());
+      }
+    } else {
+      dto.putAllVariables(VariableUtils.toTypedValueFields(lockedTask.getVariables(), request.getValueEncoding()));
+    }
+    return dto.build();
+  }
+
   protected VariableMap fromTypedValueFields(Map<String, TypedValueFieldDto> variablesMap) {
     VariableMap map = Variables.createVariables();
     for (Entry<String, TypedValueFieldDto> entry : variablesMap.entrySet()) {
-      Object value = VariableUtils.unpack(entry.getValue().getValue());
-      Map<String, Object> valueInfo = VariableUtils.unpackMap(entry.getValue().getValueInfoMap());
+      Object value = VariableUtils.unpackValue(entry.getValue(), false);
+      Map<String, Object> valueInfo = VariableUtils.unpackValueInfo(entry.getValue(), false);
       map.putValueTyped(entry.getKey(), toTypedValue(entry.getValue().getType(), value, valueInfo));
     }
     return map;
   }
 
+  protected ValueTypeResolver getValueTypeResolver() {
+    return processEngine.getProcessEngineConfiguration().getValueTypeResolver();
+  }
+
   protected TypedValue toTypedValue(String type, Object value, Map<String, Object> valueInfo) {
-    ValueTypeResolver valueTypeResolver = processEngine.getProcessEngineConfiguration().getValueTypeResolver();
+    ValueTypeResolver valueTypeResolver = getValueTypeResolver();
 
     if (type == null) {
       if (valueInfo != null && valueInfo.get(ValueType.VALUE_INFO_TRANSIENT) instanceof Boolean) {
@@ -275,8 +805,17 @@ public class ExternalTaskServiceGrpc extends ExternalTaskImplBase {
     }
   }
 
+  protected static int getMaxTasks(FetchAndLockRequest request) {
+    // clients not sending maxTasks are served one task at a time
+    return Math.max(1, request.getMaxTasks());
+  }
+
   protected ExternalTaskQueryBuilder createQuery(FetchAndLockRequest request) {
-    ExternalTaskQueryBuilder fetchBuilder = externalTaskService.fetchAndLock(1,
+    return createQuery(request, getMaxTasks(request));
+  }
+
+  protected ExternalTaskQueryBuilder createQuery(FetchAndLockRequest request, int maxTasks) {
+    ExternalTaskQueryBuilder fetchBuilder = externalTaskService.fetchAndLock(maxTasks,
         request.getWorkerId(),
         request.getUsePriority());
 
@@ -0,0 +1,185 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.engine.variable.value.builder.FileValueBuilder;
+import org.camunda.bpm.grpc.CompleteRequest;
+import org.camunda.bpm.grpc.CompleteResponse;
+import org.camunda.bpm.grpc.CompleteUploadRequest;
+import org.camunda.bpm.grpc.FileVariableHeader;
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.EngineCallExecutor.Lane;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Receives a completion with file variables uploaded in chunks. The chunks are
+ * written to temporary files as they arrive, so an upload never accumulates
+ * in memory, and are turned into file values once the upload is complete.
+ * Uploads exceeding the maximum size are failed with
+ * {@link Status#RESOURCE_EXHAUSTED}.
+ */
+@Slf4j
+public class FileUploadObserver implements StreamObserver<CompleteUploadRequest> {
+
+  private final ExternalTaskServiceGrpc externalTaskServiceGrpc;
+  private final EngineCallExecutor engineCallExecutor;
+  private final long maxUploadSize;
+  private final StreamObserver<CompleteResponse> responseObserver;
+  private final List<UploadedFile> files = new ArrayList<>();
+  private CompleteRequest completeRequest;
+  private OutputStream currentContent;
+  private long uploadedBytes;
+  // also set by the heavy lane completing the upload
+  private volatile boolean failed;
+
+  /**
+   * @param maxUploadSize
+   *          maximum bytes of all files of the upload, not limited if not
+   *          positive
+   */
+  public FileUploadObserver(ExternalTaskServiceGrpc externalTaskServiceGrpc, EngineCallExecutor engineCallExecutor, long maxUploadSize,
+      StreamObserver<CompleteResponse> responseObserver) {
+    this.externalTaskServiceGrpc = externalTaskServiceGrpc;
+    this.engineCallExecutor = engineCallExecutor;
+    this.maxUploadSize = maxUploadSize;
+    this.responseObserver = responseObserver;
+  }
+
+  @Override
+  public void onNext(CompleteUploadRequest request) {
+    if (failed) {
+      return;
+    }
+    try {
+      switch (request.getPartCase()) {
+      case COMPLETE:
+        completeRequest = request.getComplete();
+        break;
+      case FILE:
+        closeCurrentContent();
+        UploadedFile file = new UploadedFile(request.getFile(), Files.createTempFile("camunda-grpc-upload", null));
+        files.add(file);
+        currentContent = Files.newOutputStream(file.content);
+        break;
+      case CHUNK:
+        if (currentContent == null) {
+          throw new IllegalStateException("Received a chunk before a file variable");
+        }
+        uploadedBytes += request.getChunk().size();
+        if (maxUploadSize > 0 && uploadedBytes > maxUploadSize) {
+          log.debug("Rejecting file upload of task {}, it exceeds {} bytes", completeRequest == null ? null : completeRequest.getId(), maxUploadSize);
+          fail(Status.RESOURCE_EXHAUSTED.withDescription("Upload exceeds the maximum size of " + maxUploadSize + " bytes").asRuntimeException());
+          return;
+        }
+        request.getChunk().writeTo(currentContent);
+        break;
+      default:
+        throw new IllegalStateException("Received an empty upload part");
+      }
+    } catch (IOException | IllegalStateException e) {
+      log.debug("Could not receive file upload", e);
+      fail(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+    }
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    log.debug("Client aborted file upload", t);
+    failed = true;
+    cleanUp();
+  }
+
+  @Override
+  public void onCompleted() {
+    if (failed) {
+      return;
+    }
+    try {
+      closeCurrentContent();
+    } catch (IOException e) {
+      fail(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+      return;
+    }
+    if (completeRequest == null) {
+      fail(Status.INVALID_ARGUMENT.withDescription("Upload does not contain a completion").asRuntimeException());
+      return;
+    }
+    if (!engineCallExecutor.execute(Lane.HEAVY, this::complete)) {
+      fail(Status.RESOURCE_EXHAUSTED.withDescription("Too many pending heavy calls").asRuntimeException());
+    }
+  }
+
+  protected void complete() {
+    VariableMap fileVariables = Variables.createVariables();
+    VariableMap localFileVariables = Variables.createVariables();
+    try {
+      for (UploadedFile file : files) {
+        FileValueBuilder value = Variables.fileValue(file.header.getFilename()).file(file.content.toFile());
+        if (!file.header.getMimeType().isEmpty()) {
+          value.mimeType(file.header.getMimeType());
+        }
+        if (!file.header.getEncoding().isEmpty()) {
+          value.encoding(file.header.getEncoding());
+        }
+        (file.header.getLocal() ? localFileVariables : fileVariables).putValueTyped(file.header.getName(), value.create());
+      }
+    } catch (Exception e) {
+      log.error("Could not read uploaded files of task " + completeRequest.getId(), e);
+      fail(Status.INTERNAL.withDescription(e.getMessage()).withCause(e).asRuntimeException());
+      return;
+    } finally {
+      cleanUp();
+    }
+    externalTaskServiceGrpc.doCompleteWithFiles(completeRequest, fileVariables, localFileVariables, responseObserver);
+  }
+
+  protected void fail(Throwable t) {
+    failed = true;
+    cleanUp();
+    responseObserver.onError(t);
+  }
+
+  protected void closeCurrentContent() throws IOException {
+    if (currentContent != null) {
+      OutputStream content = currentContent;
+      currentContent = null;
+      content.close();
+    }
+  }
+
+  protected void cleanUp() {
+    try {
+      closeCurrentContent();
+    } catch (IOException e) {
+      log.debug("Could not close uploaded file", e);
+    }
+    for (UploadedFile file : files) {
+      try {
+        Files.deleteIfExists(file.content);
+      } catch (IOException e) {
+        log.warn("Could not delete uploaded file " + file.content, e);
+      }
+    }
+  }
+
+  protected static class UploadedFile {
+
+    private final FileVariableHeader header;
+    private final Path content;
+
+    protected UploadedFile(FileVariableHeader header, Path content) {
+      this.header = header;
+      this.content = content;
+    }
+  }
+
+}
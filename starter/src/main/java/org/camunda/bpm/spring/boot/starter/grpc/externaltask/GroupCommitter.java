@@ -0,0 +1,145 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.GrpcExternalTaskProperties.GroupCommitProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces concurrently submitted engine operations into groups executed in
+ * one transaction (group commit). A group is committed as soon as it reached
+ * its maximum size or the maximum wait time after its first operation passed.
+ * Every operation is reported to its own callback.
+ */
+@Slf4j
+public class GroupCommitter {
+
+  private final GroupedCommandExecutor groupedCommandExecutor;
+  private final int maxSize;
+  private final long maxWaitNanos;
+  private final BlockingQueue<PendingOperation> pendingOperations;
+  private final List<Thread> committerThreads = new ArrayList<>();
+  // submitting holds the read lock, so no operation is queued after
+  // shutdown stopped accepting operations and drained the queue
+  private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+  private volatile boolean isRunning = true;
+
+  public GroupCommitter(GroupedCommandExecutor groupedCommandExecutor, GroupCommitProperties properties) {
+    this.groupedCommandExecutor = groupedCommandExecutor;
+    this.maxSize = Math.max(1, properties.getMaxSize());
+    this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(properties.getMaxWaitMicros());
+    this.pendingOperations = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+    for (int i = 1; i <= properties.getThreads(); i++) {
+      Thread thread = new Thread(this::run, GroupCommitter.class.getSimpleName() + "-" + i);
+      thread.setDaemon(true);
+      committerThreads.add(thread);
+      thread.start();
+    }
+  }
+
+  /**
+   * Queues the operation for the next group. The callback receives the
+   * exception of the operation or <code>null</code> if it succeeded.
+   *
+   * @return <code>false</code> if the operation was not queued because too
+   *         many operations are pending
+   */
+  public boolean submit(Runnable operation, Consumer<Exception> callback) {
+    runningLock.readLock().lock();
+    try {
+      return isRunning && pendingOperations.offer(new PendingOperation(operation, callback));
+    } finally {
+      runningLock.readLock().unlock();
+    }
+  }
+
+  protected void run() {
+    while (isRunning) {
+      try {
+        PendingOperation first = pendingOperations.poll(100, TimeUnit.MILLISECONDS);
+        if (first != null) {
+          commit(collectGroup(first));
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        // what ever happens, don't leave the loop
+        log.error("Error on committing group", e);
+      }
+    }
+  }
+
+  protected List<PendingOperation> collectGroup(PendingOperation first) throws InterruptedException {
+    List<PendingOperation> group = new ArrayList<>(maxSize);
+    group.add(first);
+    long deadline = System.nanoTime() + maxWaitNanos;
+    while (group.size() < maxSize) {
+      long remaining = deadline - System.nanoTime();
+      PendingOperation next = remaining > 0 ? pendingOperations.poll(remaining, TimeUnit.NANOSECONDS) : pendingOperations.poll();
+      if (next == null) {
+        break;
+      }
+      group.add(next);
+    }
+    return group;
+  }
+
+  protected void commit(List<PendingOperation> group) {
+    List<Runnable> operations = new ArrayList<>(group.size());
+    group.forEach(pendingOperation -> operations.add(pendingOperation.operation));
+    List<Exception> exceptions = groupedCommandExecutor.execute(operations);
+    log.debug("Committed group of {} operations", group.size());
+    for (int i = 0; i < group.size(); i++) {
+      try {
+        group.get(i).callback.accept(exceptions.get(i));
+      } catch (Exception e) {
+        log.warn("Error on answering grouped operation", e);
+      }
+    }
+  }
+
+  public void shutdown() {
+    runningLock.writeLock().lock();
+    try {
+      isRunning = false;
+    } finally {
+      runningLock.writeLock().unlock();
+    }
+    for (Thread thread : committerThreads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        log.warn("Shutting down the group committer failed", e);
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    // commit what is left so no caller remains unanswered
+    List<PendingOperation> remaining = new ArrayList<>();
+    pendingOperations.drainTo(remaining);
+    for (int i = 0; i < remaining.size(); i += maxSize) {
+      commit(remaining.subList(i, Math.min(i + maxSize, remaining.size())));
+    }
+  }
+
+  protected static class PendingOperation {
+
+    private final Runnable operation;
+    private final Consumer<Exception> callback;
+
+    protected PendingOperation(Runnable operation, Consumer<Exception> callback) {
+      this.operation = operation;
+      this.callback = callback;
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes groups of engine operations in a single transaction. If any
+ * operation of a group fails, the transaction is rolled back and every
+ * operation of the group is retried in a transaction of its own, so a single
+ * failing operation does not fail the others.
+ */
+@Slf4j
+public class GroupedCommandExecutor {
+
+  private final ProcessEngine processEngine;
+
+  public GroupedCommandExecutor(ProcessEngine processEngine) {
+    this.processEngine = processEngine;
+  }
+
+  /**
+   * @return the exception of every operation in the order of the operations,
+   *         <code>null</code> for operations that succeeded
+   */
+  public List<Exception> execute(List<? extends Runnable> operations) {
+    if (operations.isEmpty()) {
+      return Collections.emptyList();
+    }
+    try {
+      getCommandExecutor().execute(commandContext -> {
+        operations.forEach(Runnable::run);
+        return null;
+      });
+      return Collections.nCopies(operations.size(), null);
+    } catch (Exception e) {
+      if (operations.size() == 1) {
+        return Collections.singletonList(e);
+      }
+      log.debug("Group of {} operations failed, retrying them one by one", operations.size(), e);
+    }
+
+    List<Exception> results = new ArrayList<>(operations.size());
+    for (Runnable operation : operations) {
+      try {
+        getCommandExecutor().execute(commandContext -> {
+          operation.run();
+          return null;
+        });
+        results.add(null);
+      } catch (Exception e) {
+        results.add(e);
+      }
+    }
+    return results;
+  }
+
+  protected CommandExecutor getCommandExecutor() {
+    return ((ProcessEngineConfigurationImpl) processEngine.getProcessEngineConfiguration()).getCommandExecutorTxRequired();
+  }
+
+}
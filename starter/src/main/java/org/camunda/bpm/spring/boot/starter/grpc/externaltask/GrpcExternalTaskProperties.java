@@ -0,0 +1,87 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = GrpcExternalTaskProperties.PREFIX)
+public class GrpcExternalTaskProperties {
+
+  public static final String PREFIX = "camunda.bpm.grpc.external-task";
+
+  public enum DispatchMode {
+    /** every waiting client queries the engine on its own on wake-up */
+    PER_CLIENT,
+    /** waiting clients with identical filters lock their tasks with one query and share them */
+    AGGREGATED
+  }
+
+  @Data
+  public static class LaneProperties {
+
+    private int poolSize;
+
+    private int queueCapacity;
+
+    public LaneProperties(int poolSize, int queueCapacity) {
+      this.poolSize = poolSize;
+      this.queueCapacity = queueCapacity;
+    }
+  }
+
+  @Data
+  public static class GroupCommitProperties {
+
+    /** coalesce concurrent unary completions, failures and BPMN errors into one transaction */
+    private boolean enabled = false;
+
+    /** maximum number of operations committed in one transaction */
+    private int maxSize = 50;
+
+    /** maximum time a group waits for further operations after its first one */
+    private long maxWaitMicros = 500;
+
+    /** number of threads committing groups */
+    private int threads = 4;
+
+    /** pending operations before further ones are executed on their own */
+    private int queueCapacity = 1000;
+  }
+
+  private DispatchMode dispatchMode = DispatchMode.PER_CLIENT;
+
+  /**
+   * only wake up clients waiting for the topics of newly created tasks, see
+   * {@link ExternalTaskCreationPlugin}; replaces the engine's external task
+   * manager
+   */
+  private boolean targetedWakeUp = false;
+
+  /** lock newly created tasks for one waiting client right after commit, requires {@link #targetedWakeUp} */
+  private boolean handOff = false;
+
+  /** number of threads handing off newly created tasks */
+  private int handOffPoolSize = 2;
+
+  /** responses buffered per fetch and lock stream while the client does not consume them */
+  private int maxBufferedResponses = 100;
+
+  /** maximum number of tasks of a batch completed in one transaction */
+  private int batchGroupSize = 100;
+
+  /** bytes per chunk when streaming binary variables to clients */
+  private int binaryChunkSize = 64 * 1024;
+
+  /** maximum bytes of all files uploaded with one completion, not limited if not positive */
+  private long maxUploadSize = 100L * 1024 * 1024;
+
+  /** engine calls extending locks and unlocking tasks */
+  private LaneProperties controlLane = new LaneProperties(4, 1000);
+
+  /** engine calls completing or failing tasks and fetching tasks for clients */
+  private LaneProperties heavyLane = new LaneProperties(16, 1000);
+
+  private GroupCommitProperties groupCommit = new GroupCommitProperties();
+
+}
@@ -0,0 +1,63 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands newly created external tasks directly to a single waiting client of
+ * their topic right after the creating transaction was committed, instead of
+ * waking up all waiting clients of the topic.
+ */
+@Slf4j
+public class HandOffDispatcher implements ExternalTaskAvailabilityListener {
+
+  private final WaitingClientInformer informer;
+  private final ExternalTaskAvailabilityListener fallback;
+  private final ExecutorService executor;
+
+  public HandOffDispatcher(WaitingClientInformer informer, ExternalTaskAvailabilityListener fallback, int poolSize) {
+    this.informer = informer;
+    this.fallback = fallback;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+      Thread thread = new Thread(runnable, HandOffDispatcher.class.getSimpleName() + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public void topicsAvailable(Collection<String> topicNames) {
+    for (String topicName : topicNames) {
+      try {
+        executor.execute(() -> informer.handOff(topicName));
+      } catch (RejectedExecutionException e) {
+        log.debug("Hand-off dispatcher is shut down, informing waiting clients of topic {} regularly", topicName);
+        fallback.topicsAvailable(topicNames);
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void tasksAvailable() {
+    fallback.tasksAvailable();
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      log.warn("Shutting down the hand-off dispatcher failed", e);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
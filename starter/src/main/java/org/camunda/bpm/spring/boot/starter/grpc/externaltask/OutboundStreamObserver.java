@@ -0,0 +1,109 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serializes all calls to a server stream and only hands messages to the
+ * transport while it is ready. Messages are buffered in between, exceeding
+ * the buffer closes the stream with {@link Status#RESOURCE_EXHAUSTED}.
+ * Messages that can no longer be delivered are handed to a discard handler.
+ */
+@Slf4j
+public class OutboundStreamObserver<T> implements StreamObserver<T> {
+
+  private final ServerCallStreamObserver<T> delegate;
+  private final int maxBufferedMessages;
+  private final Consumer<T> discardHandler;
+  private final Queue<T> buffer = new ArrayDeque<>();
+  private boolean completionRequested;
+  private volatile boolean closed;
+
+  public OutboundStreamObserver(ServerCallStreamObserver<T> delegate, int maxBufferedMessages, Consumer<T> discardHandler) {
+    this.delegate = delegate;
+    this.maxBufferedMessages = maxBufferedMessages;
+    this.discardHandler = discardHandler;
+    delegate.setOnReadyHandler(this::drain);
+    delegate.setOnCancelHandler(this::cancelled);
+  }
+
+  @Override
+  public void onNext(T message) {
+    synchronized (this) {
+      if (!closed && !completionRequested) {
+        if (buffer.size() < maxBufferedMessages) {
+          buffer.add(message);
+          drain();
+          return;
+        }
+        log.warn("Client does not consume its responses, closing the stream after {} buffered messages", buffer.size());
+        closed = true;
+        delegate.onError(Status.RESOURCE_EXHAUSTED.withDescription("Too many buffered responses").asRuntimeException());
+      }
+    }
+    discard(message);
+    discardBuffer();
+  }
+
+  @Override
+  public synchronized void onError(Throwable t) {
+    if (!closed) {
+      closed = true;
+      delegate.onError(t);
+    }
+    discardBuffer();
+  }
+
+  @Override
+  public synchronized void onCompleted() {
+    completionRequested = true;
+    drain();
+  }
+
+  public boolean isCancelled() {
+    return closed || delegate.isCancelled();
+  }
+
+  protected synchronized void drain() {
+    while (!closed && delegate.isReady() && !buffer.isEmpty()) {
+      delegate.onNext(buffer.poll());
+    }
+    if (!closed && completionRequested && buffer.isEmpty()) {
+      closed = true;
+      delegate.onCompleted();
+    }
+  }
+
+  protected void cancelled() {
+    synchronized (this) {
+      closed = true;
+    }
+    discardBuffer();
+  }
+
+  protected void discardBuffer() {
+    T message;
+    while ((message = poll()) != null) {
+      discard(message);
+    }
+  }
+
+  protected synchronized T poll() {
+    return buffer.poll();
+  }
+
+  protected void discard(T message) {
+    try {
+      discardHandler.accept(message);
+    } catch (Exception e) {
+      log.warn("Could not discard undeliverable message", e);
+    }
+  }
+
+}
@@ -0,0 +1,98 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.camunda.bpm.grpc.OutcomeRequest;
+import org.camunda.bpm.grpc.OutcomeResponse;
+import org.camunda.bpm.grpc.core.VariableUtils;
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.EngineCallExecutor.Lane;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Receives the task outcomes of one outcome stream. Outcomes are executed
+ * concurrently in the engine call lanes and every outcome is answered with
+ * its correlation id. The stream is completed once the client completed its
+ * side and all outcomes were answered.
+ */
+@Slf4j
+public class OutcomeStreamObserver implements StreamObserver<OutcomeRequest> {
+
+  private final ExternalTaskServiceGrpc externalTaskServiceGrpc;
+  private final EngineCallExecutor engineCallExecutor;
+  private final StreamObserver<OutcomeResponse> client;
+  private final AtomicInteger pendingOutcomes = new AtomicInteger();
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private volatile boolean completionRequested;
+
+  public OutcomeStreamObserver(ExternalTaskServiceGrpc externalTaskServiceGrpc, EngineCallExecutor engineCallExecutor, StreamObserver<OutcomeResponse> client) {
+    this.externalTaskServiceGrpc = externalTaskServiceGrpc;
+    this.engineCallExecutor = engineCallExecutor;
+    this.client = client;
+  }
+
+  @Override
+  public void onNext(OutcomeRequest request) {
+    pendingOutcomes.incrementAndGet();
+    Lane lane = ExternalTaskServiceGrpc.getLane(request);
+    if (!engineCallExecutor.execute(lane, () -> execute(request))) {
+      log.debug("Rejecting outcome {}, {} lane is exhausted", request.getCorrelationId(), lane);
+      respond(request, HttpURLConnection.HTTP_UNAVAILABLE, "Too many pending " + lane.name().toLowerCase() + " calls");
+    }
+  }
+
+  protected void execute(OutcomeRequest request) {
+    try {
+      externalTaskServiceGrpc.executeOutcome(request, exception -> {
+        if (exception == null) {
+          respond(request, HttpURLConnection.HTTP_NO_CONTENT, null);
+        } else {
+          log.debug("Error on executing outcome {}", request.getCorrelationId(), exception);
+          respond(request, ExternalTaskServiceGrpc.toHttpStatus(exception), exception.getMessage());
+        }
+      });
+    } catch (Exception e) {
+      log.debug("Could not read outcome {}", request.getCorrelationId(), e);
+      respond(request, HttpURLConnection.HTTP_BAD_REQUEST, e.getMessage());
+    }
+  }
+
+  protected void respond(OutcomeRequest request, int status, String errorMessage) {
+    client.onNext(OutcomeResponse.newBuilder()
+        .setCorrelationId(request.getCorrelationId())
+        .setStatus(status)
+        .setErrorMessage(VariableUtils.getSafe(errorMessage))
+        .build());
+    if (pendingOutcomes.decrementAndGet() == 0 && completionRequested) {
+      complete();
+    }
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    if (Status.CANCELLED.getCode().equals(Status.fromThrowable(t).getCode())) {
+      log.info("Client closed its outcome stream");
+    } else {
+      log.error("Server received error on outcome stream", t);
+    }
+  }
+
+  @Override
+  public void onCompleted() {
+    completionRequested = true;
+    if (pendingOutcomes.get() == 0) {
+      complete();
+    }
+  }
+
+  protected void complete() {
+    if (closed.compareAndSet(false, true)) {
+      client.onCompleted();
+    }
+  }
+
+}
@@ -0,0 +1,127 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hashed timing wheel scheduling large numbers of timeouts with O(1) cost for
+ * adding and cancelling. Timeouts expire on the wheel's worker thread with a
+ * precision of one tick, so expiry tasks have to be short.
+ */
+@Slf4j
+public class TimingWheel implements Runnable {
+
+  public class Timeout {
+
+    private final Runnable task;
+    private final long deadline;
+    private long remainingRounds;
+    private volatile boolean cancelled;
+
+    protected Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    public void cancel() {
+      cancelled = true;
+    }
+
+    public boolean isCancelled() {
+      return cancelled;
+    }
+  }
+
+  private final long tickNanos;
+  private final Queue<Timeout>[] wheel;
+  private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean started = new AtomicBoolean(false);
+  private final Thread workerThread;
+  private volatile boolean running = true;
+  private long startTime;
+  private long tick;
+
+  @SuppressWarnings("unchecked")
+  public TimingWheel(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.wheel = new Queue[ticksPerWheel];
+    for (int i = 0; i < ticksPerWheel; i++) {
+      wheel[i] = new ArrayDeque<>();
+    }
+    this.workerThread = new Thread(this, TimingWheel.class.getSimpleName());
+    this.workerThread.setDaemon(true);
+  }
+
+  public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+    if (started.compareAndSet(false, true)) {
+      startTime = System.nanoTime();
+      workerThread.start();
+    }
+    Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+    pendingTimeouts.add(timeout);
+    return timeout;
+  }
+
+  public void stop() {
+    running = false;
+    if (started.get()) {
+      workerThread.interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      long tickDeadline = startTime + (tick + 1) * tickNanos;
+      long sleepNanos = tickDeadline - System.nanoTime();
+      if (sleepNanos > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+          continue;
+        }
+      }
+      transferPendingTimeouts();
+      expireTimeouts(wheel[(int) (tick % wheel.length)]);
+      tick++;
+    }
+  }
+
+  protected void transferPendingTimeouts() {
+    Timeout timeout;
+    while ((timeout = pendingTimeouts.poll()) != null) {
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      // never schedule into the past, expired timeouts fire with the current tick
+      long ticks = Math.max(tick, (timeout.deadline - startTime) / tickNanos);
+      timeout.remainingRounds = (ticks - tick) / wheel.length;
+      wheel[(int) (ticks % wheel.length)].add(timeout);
+    }
+  }
+
+  protected void expireTimeouts(Queue<Timeout> bucket) {
+    for (Iterator<Timeout> iterator = bucket.iterator(); iterator.hasNext();) {
+      Timeout timeout = iterator.next();
+      if (timeout.isCancelled()) {
+        iterator.remove();
+      } else if (timeout.remainingRounds <= 0) {
+        iterator.remove();
+        try {
+          timeout.task.run();
+        } catch (Exception e) {
+          log.warn("Timeout task failed", e);
+        }
+      } else {
+        timeout.remainingRounds--;
+      }
+    }
+  }
+
+}
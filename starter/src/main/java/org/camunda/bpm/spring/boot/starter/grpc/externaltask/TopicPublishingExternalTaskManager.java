@@ -0,0 +1,42 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.Collections;
+
+import org.camunda.bpm.engine.impl.ProcessEngineImpl;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.persistence.entity.ExternalTaskEntity;
+import org.camunda.bpm.engine.impl.persistence.entity.ExternalTaskManager;
+
+public class TopicPublishingExternalTaskManager extends ExternalTaskManager {
+
+  private final ExternalTaskCreationPlugin plugin;
+
+  public TopicPublishingExternalTaskManager(ExternalTaskCreationPlugin plugin) {
+    this.plugin = plugin;
+  }
+
+  @Override
+  public void insert(ExternalTaskEntity externalTask) {
+    getDbEntityManager().insert(externalTask);
+
+    String topicName = externalTask.getTopicName();
+    Context.getCommandContext()
+      .getTransactionContext()
+      .addTransactionListener(TransactionState.COMMITTED, commandContext -> {
+        // keep other consumers like the REST API's long polling informed
+        ProcessEngineImpl.EXT_TASK_CONDITIONS.signalAll();
+        plugin.publishTopics(Collections.singletonList(topicName));
+      });
+  }
+
+  @Override
+  public void fireExternalTaskAvailableEvent() {
+    super.fireExternalTaskAvailableEvent();
+
+    Context.getCommandContext()
+      .getTransactionContext()
+      .addTransactionListener(TransactionState.COMMITTED, commandContext -> plugin.publishTasks());
+  }
+
+}
@@ -0,0 +1,124 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.camunda.bpm.grpc.FetchAndLockRequest;
+import org.camunda.bpm.grpc.FetchAndLockRequest.FetchExternalTaskTopic;
+import org.camunda.bpm.grpc.FetchAndLockResponse;
+
+import io.grpc.stub.StreamObserver;
+import lombok.Getter;
+
+/**
+ * A client stream waiting for external tasks. Instances are compared by
+ * identity and serve as monitor for their state. Engine queries and sends to
+ * the client stream happen outside of it, the tasks a query may lock are
+ * reserved beforehand.
+ * <p>
+ * Regular clients wait for exactly one request that is answered once. Credit
+ * based clients keep waiting as long as they have credits left, every request
+ * of theirs grants additional credits and updates the subscribed topics.
+ */
+@Getter
+public class WaitingClient {
+
+  private final StreamObserver<FetchAndLockResponse> client;
+  private final boolean creditBased;
+  private volatile FetchAndLockRequest request;
+  private volatile Set<String> topicNames = Collections.emptySet();
+  private volatile boolean active = true;
+  private int credits;
+  private int reservedTasks;
+  private long grantSequence;
+  private TimingWheel.Timeout expiry;
+
+  public WaitingClient(FetchAndLockRequest request, StreamObserver<FetchAndLockResponse> client) {
+    this.client = client;
+    this.creditBased = request.getCreditBased();
+    update(request);
+  }
+
+  public WaitingClient(StreamObserver<FetchAndLockResponse> client) {
+    this.client = client;
+    this.creditBased = true;
+  }
+
+  public synchronized void update(FetchAndLockRequest request) {
+    this.request = request;
+    this.topicNames = request.getTopicList().stream().map(FetchExternalTaskTopic::getTopicName).collect(Collectors.toSet());
+    if (creditBased) {
+      credits += request.getCredits();
+      grantSequence = Math.max(grantSequence, request.getGrantSequence());
+    }
+  }
+
+  /**
+   * @return the number of tasks the client is able to take right now
+   */
+  public synchronized int getMaxTasks() {
+    int maxTasks = ExternalTaskServiceGrpc.getMaxTasks(request);
+    if (!creditBased) {
+      // the single request is answered by one query at a time
+      return reservedTasks > 0 ? 0 : maxTasks;
+    }
+    return Math.max(0, Math.min(credits - reservedTasks, maxTasks));
+  }
+
+  /**
+   * Reserves the tasks the client is able to take right now for a query, they
+   * are released again once the query's tasks were consumed.
+   *
+   * @return the number of reserved tasks
+   */
+  public synchronized int reserve() {
+    int maxTasks = getMaxTasks();
+    reservedTasks += maxTasks;
+    return maxTasks;
+  }
+
+  public synchronized void release(int tasks) {
+    reservedTasks -= tasks;
+  }
+
+  /**
+   * @return <code>true</code> if the client keeps waiting for further tasks
+   */
+  public synchronized boolean consume(int tasks) {
+    if (!creditBased) {
+      return false;
+    }
+    credits -= tasks;
+    return credits > 0;
+  }
+
+  /**
+   * @return the latest credit grant of the client merged into its credits
+   */
+  public synchronized long getGrantSequence() {
+    return grantSequence;
+  }
+
+  public synchronized boolean hasCredits() {
+    return !creditBased || credits > 0;
+  }
+
+  public synchronized void setExpiry(TimingWheel.Timeout expiry) {
+    cancelExpiry();
+    this.expiry = expiry;
+  }
+
+  public synchronized void cancelExpiry() {
+    if (expiry != null) {
+      expiry.cancel();
+      expiry = null;
+    }
+  }
+
+  public synchronized void deactivate() {
+    active = false;
+    cancelExpiry();
+  }
+
+}
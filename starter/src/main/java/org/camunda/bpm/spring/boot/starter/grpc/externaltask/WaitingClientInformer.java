@@ -1,20 +1,32 @@
   package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.lang3.tuple.Pair;
+import javax.annotation.PreDestroy;
+
+import org.camunda.bpm.engine.externaltask.ExternalTask;
 import org.camunda.bpm.engine.externaltask.LockedExternalTask;
 import org.camunda.bpm.grpc.FetchAndLockResponse;
 import org.camunda.bpm.grpc.FetchAndLockRequest;
 import org.camunda.bpm.spring.boot.starter.event.PostDeployEvent;
 import org.camunda.bpm.spring.boot.starter.event.PreUndeployEvent;
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.GrpcExternalTaskProperties.DispatchMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 
@@ -25,52 +37,380 @@ public class WaitingClientInformer {
   @Autowired
   ExternalTaskServiceGrpc externalTaskServiceGrpc;
 
+  @Autowired
+  GrpcExternalTaskProperties properties;
+
+  @Autowired(required = false)
+  ExternalTaskCreationPlugin externalTaskCreationPlugin;
+
   private ExternalTaskCreationListener externalTaskCreationListener;
 
-  private List<Pair<FetchAndLockRequest, StreamObserver<FetchAndLockResponse>>> waitingClients = Collections.synchronizedList(new ArrayList<>());
+  private ExternalTaskAvailabilityListener externalTaskAvailabilityListener;
+
+  private final ConcurrentMap<StreamObserver<FetchAndLockResponse>, WaitingClient> waitingClientsByStream = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<String, Set<WaitingClient>> waitingClientsByTopic = new ConcurrentHashMap<>();
+
+  private final TimingWheel expiryTimer = new TimingWheel(100, TimeUnit.MILLISECONDS, 512);
 
   public void addWaitingClient(FetchAndLockRequest request, StreamObserver<FetchAndLockResponse> client) {
-    waitingClients.add(Pair.of(request, client));
+    WaitingClient waitingClient = new WaitingClient(request, client);
+    // a client stream only ever waits for its latest request
+    WaitingClient previous = waitingClientsByStream.put(client, waitingClient);
+    if (previous != null) {
+      deactivate(previous);
+    }
+    index(waitingClient);
+    scheduleExpiry(waitingClient);
+  }
+
+  public void grantCredits(FetchAndLockRequest request, StreamObserver<FetchAndLockResponse> client) {
+    grantCredits(request, client, true);
+  }
+
+  /**
+   * Registers the request without querying the engine right away, it is
+   * served on the next wake-up or expires.
+   */
+  public void deferClient(FetchAndLockRequest request, StreamObserver<FetchAndLockResponse> client) {
+    if (request.getCreditBased()) {
+      grantCredits(request, client, false);
+    } else {
+      addWaitingClient(request, client);
+    }
+  }
+
+  protected void grantCredits(FetchAndLockRequest request, StreamObserver<FetchAndLockResponse> client, boolean informImmediately) {
+    WaitingClient waitingClient = updateWaitingClient(request, client);
+    if (informImmediately) {
+      informClient(waitingClient);
+    }
+    synchronized (waitingClient) {
+      if (!waitingClient.isActive()) {
+        return;
+      }
+      if (waitingClient.hasCredits()) {
+        scheduleExpiry(waitingClient);
+      } else {
+        remove(waitingClient);
+      }
+    }
+  }
+
+  protected WaitingClient updateWaitingClient(FetchAndLockRequest request, StreamObserver<FetchAndLockResponse> client) {
+    while (true) {
+      WaitingClient waitingClient = waitingClientsByStream.computeIfAbsent(client, WaitingClient::new);
+      synchronized (waitingClient) {
+        if (!waitingClient.isActive()) {
+          // removed concurrently after running out of credits, register anew
+          continue;
+        }
+        unindex(waitingClient);
+        waitingClient.update(request);
+        index(waitingClient);
+        return waitingClient;
+      }
+    }
+  }
+
+  protected void scheduleExpiry(WaitingClient waitingClient) {
+    long timeout = waitingClient.getRequest().getAsyncResponseTimeout();
+    if (timeout > 0) {
+      waitingClient.setExpiry(expiryTimer.newTimeout(() -> expire(waitingClient), timeout, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  protected void expire(WaitingClient waitingClient) {
+    long grantSequence;
+    synchronized (waitingClient) {
+      if (!waitingClient.isActive()) {
+        return;
+      }
+      remove(waitingClient);
+      grantSequence = waitingClient.getGrantSequence();
+    }
+    // the empty response makes the client re-issue its request which picks
+    // up changed subscriptions and tasks not signaled by the engine, grants
+    // still in flight are not revoked by it
+    log.debug("Pending request expired after {} ms", waitingClient.getRequest().getAsyncResponseTimeout());
+    waitingClient.getClient().onNext(FetchAndLockResponse.newBuilder()
+        .setGrantSequence(grantSequence)
+        .build());
   }
 
   public void informClients() {
-    log.info("Found {} pending requests", waitingClients.size());
-    for (Iterator<Pair<FetchAndLockRequest, StreamObserver<FetchAndLockResponse>>> iterator = waitingClients.iterator(); iterator.hasNext();) {
-      Pair<FetchAndLockRequest, StreamObserver<FetchAndLockResponse>> pair = iterator.next();
-      List<LockedExternalTask> lockedTasks = externalTaskServiceGrpc.createQuery(pair.getLeft()).execute();
-      if (!lockedTasks.isEmpty()) {
-        LockedExternalTask lockedExternalTask = lockedTasks.get(0);
-        log.info("informed client about locked external task {}", lockedExternalTask.getId());
-        iterator.remove();
-        pair.getRight().onNext(FetchAndLockResponse.newBuilder()
-            .setId(lockedExternalTask.getId())
-            .setWorkerId(lockedExternalTask.getWorkerId())
-            .build());
+    log.info("Found {} pending requests", waitingClientsByStream.size());
+    informWaitingClients(new ArrayList<>(waitingClientsByStream.values()));
+  }
+
+  public void informClients(Collection<String> topicNames) {
+    Set<WaitingClient> waitingClients = new LinkedHashSet<>();
+    for (String topicName : topicNames) {
+      waitingClients.addAll(waitingClientsByTopic.getOrDefault(topicName, Collections.emptySet()));
+    }
+    log.info("Found {} pending requests for topics {}", waitingClients.size(), topicNames);
+    informWaitingClients(waitingClients);
+  }
+
+  protected void informWaitingClients(Collection<WaitingClient> waitingClients) {
+    if (properties.getDispatchMode() == DispatchMode.AGGREGATED) {
+      informClientsAggregated(waitingClients);
+    } else {
+      for (WaitingClient waitingClient : waitingClients) {
+        informClient(waitingClient);
+      }
+    }
+  }
+
+  protected void informClientsAggregated(Collection<WaitingClient> waitingClients) {
+    // clients with identical filters share one query, the locks are handed
+    // over to their workers within the same command
+    Map<List<Object>, List<Reservation>> groups = new LinkedHashMap<>();
+    for (WaitingClient waitingClient : waitingClients) {
+      Reservation reservation = reserve(waitingClient);
+      if (reservation != null) {
+        groups.computeIfAbsent(getFilterKey(reservation.request), key -> new ArrayList<>()).add(reservation);
+      }
+    }
+    log.info("Found {} groups of identical filters for {} pending requests", groups.size(), waitingClients.size());
+
+    for (List<Reservation> group : groups.values()) {
+      informGroup(group);
+    }
+  }
+
+  protected void informGroup(List<Reservation> group) {
+    List<String> workerIds = new ArrayList<>();
+    List<Integer> maxTasks = new ArrayList<>();
+    for (Reservation reservation : group) {
+      workerIds.add(reservation.request.getWorkerId());
+      maxTasks.add(reservation.maxTasks);
+    }
+    List<List<LockedExternalTask>> lockedTasks;
+    try {
+      lockedTasks = externalTaskServiceGrpc.fetchAndLockForWorkers(group.get(0).request, workerIds, maxTasks);
+    } catch (RuntimeException e) {
+      group.forEach(Reservation::release);
+      throw e;
+    }
+    for (int i = 0; i < group.size(); i++) {
+      deliver(group.get(i), lockedTasks.get(i));
+    }
+  }
+
+  /**
+   * @return the parts of the request determining which tasks are locked and
+   *         how, except for the worker
+   */
+  protected static List<Object> getFilterKey(FetchAndLockRequest request) {
+    return Arrays.asList(request.getTopicList(), request.getUsePriority());
+  }
+
+  protected List<LockedExternalTask> informClient(WaitingClient waitingClient) {
+    Reservation reservation = reserve(waitingClient);
+    if (reservation == null) {
+      return Collections.emptyList();
+    }
+    List<LockedExternalTask> lockedTasks;
+    try {
+      lockedTasks = externalTaskServiceGrpc.createQuery(reservation.request, reservation.maxTasks).execute();
+    } catch (RuntimeException e) {
+      reservation.release();
+      throw e;
+    }
+    return deliver(reservation, lockedTasks);
+  }
+
+  /**
+   * Takes the request of the client and the tasks it is able to take right
+   * now, so the engine can be queried without holding the client.
+   *
+   * @return <code>null</code> if the client cannot take any tasks
+   */
+  protected Reservation reserve(WaitingClient waitingClient) {
+    synchronized (waitingClient) {
+      if (!waitingClient.isActive() || waitingClient.getTopicNames().isEmpty()) {
+        return null;
+      }
+      FetchAndLockRequest request = waitingClient.getRequest();
+      int maxTasks = waitingClient.reserve();
+      if (maxTasks <= 0) {
+        return null;
+      }
+      return new Reservation(waitingClient, request, maxTasks);
+    }
+  }
+
+  /**
+   * Sends the tasks locked for a reservation to its client if it still waits
+   * for them, the others are unlocked.
+   *
+   * @return the sent tasks
+   */
+  protected List<LockedExternalTask> deliver(Reservation reservation, List<LockedExternalTask> lockedTasks) {
+    WaitingClient waitingClient = reservation.waitingClient;
+    List<LockedExternalTask> sentTasks = new ArrayList<>();
+    List<LockedExternalTask> orphanedTasks = new ArrayList<>();
+    long grantSequence;
+    synchronized (waitingClient) {
+      reservation.release();
+      if (lockedTasks.isEmpty()) {
+        return lockedTasks;
+      }
+      if (!waitingClient.isActive() || isCancelled(waitingClient.getClient())) {
+        // the client expired or disconnected in the meantime
+        remove(waitingClient);
+        orphanedTasks.addAll(lockedTasks);
+      } else {
+        for (LockedExternalTask lockedTask : lockedTasks) {
+          // the client may have unsubscribed from the topic in the meantime
+          (waitingClient.getTopicNames().contains(lockedTask.getTopicName()) ? sentTasks : orphanedTasks).add(lockedTask);
+        }
+        if (!sentTasks.isEmpty() && !waitingClient.consume(sentTasks.size())) {
+          remove(waitingClient);
+        }
+      }
+      grantSequence = waitingClient.getGrantSequence();
+    }
+    if (!sentTasks.isEmpty()) {
+      log.info("informed client about {} locked external tasks", sentTasks.size());
+      waitingClient.getClient().onNext(externalTaskServiceGrpc.fromLockedTasks(reservation.request, sentTasks).toBuilder()
+          .setGrantSequence(grantSequence)
+          .build());
+    }
+    if (!orphanedTasks.isEmpty()) {
+      externalTaskServiceGrpc.unlockTasks(orphanedTasks);
+    }
+    return sentTasks;
+  }
+
+  protected static boolean isCancelled(StreamObserver<FetchAndLockResponse> client) {
+    if (client instanceof OutboundStreamObserver) {
+      return ((OutboundStreamObserver<FetchAndLockResponse>) client).isCancelled();
+    }
+    return client instanceof ServerCallStreamObserver && ((ServerCallStreamObserver<FetchAndLockResponse>) client).isCancelled();
+  }
+
+  /**
+   * @return the locked task of a waited-on topic that becomes fetchable again
+   *         first or <code>null</code> if there is none
+   */
+  public ExternalTask getNextDueTask() {
+    ExternalTask nextDueTask = null;
+    for (String topicName : new ArrayList<>(waitingClientsByTopic.keySet())) {
+      ExternalTask task = externalTaskServiceGrpc.getNextDueTask(topicName);
+      if (task != null && (nextDueTask == null || task.getLockExpirationTime().before(nextDueTask.getLockExpirationTime()))) {
+        nextDueTask = task;
+      }
+    }
+    return nextDueTask;
+  }
+
+  /**
+   * @return whether the task was not completed, unlocked again or suspended in
+   *         the meantime and its lock actually expired
+   */
+  public boolean isDue(ExternalTask task) {
+    return externalTaskServiceGrpc.isFetchable(task.getId());
+  }
+
+  public void handOff(String topicName) {
+    for (WaitingClient waitingClient : waitingClientsByTopic.getOrDefault(topicName, Collections.emptySet())) {
+      // the first client locking tasks gets the new task or an equivalent one
+      if (!informClient(waitingClient).isEmpty()) {
+        return;
       }
     }
   }
 
   public void removeClientRequests(StreamObserver<FetchAndLockResponse> client) {
     log.info("Removing all pending requests for client");
-    for (Iterator<Pair<FetchAndLockRequest, StreamObserver<FetchAndLockResponse>>> iterator = waitingClients.iterator(); iterator.hasNext();) {
-      Pair<FetchAndLockRequest, StreamObserver<FetchAndLockResponse>> pair = iterator.next();
-      if (pair.getRight().equals(client)) {
-        iterator.remove();
-      }
+    WaitingClient waitingClient = waitingClientsByStream.remove(client);
+    if (waitingClient != null) {
+      deactivate(waitingClient);
     }
   }
 
+  protected void remove(WaitingClient waitingClient) {
+    if (waitingClientsByStream.remove(waitingClient.getClient(), waitingClient)) {
+      deactivate(waitingClient);
+    }
+  }
+
+  protected void deactivate(WaitingClient waitingClient) {
+    synchronized (waitingClient) {
+      waitingClient.deactivate();
+      unindex(waitingClient);
+    }
+  }
+
+  protected void index(WaitingClient waitingClient) {
+    for (String topicName : waitingClient.getTopicNames()) {
+      waitingClientsByTopic.compute(topicName, (topic, waitingClients) -> {
+        Set<WaitingClient> result = waitingClients == null ? ConcurrentHashMap.newKeySet() : waitingClients;
+        result.add(waitingClient);
+        return result;
+      });
+    }
+  }
+
+  protected void unindex(WaitingClient waitingClient) {
+    for (String topicName : waitingClient.getTopicNames()) {
+      waitingClientsByTopic.computeIfPresent(topicName, (topic, waitingClients) -> {
+        waitingClients.remove(waitingClient);
+        return waitingClients.isEmpty() ? null : waitingClients;
+      });
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    expiryTimer.stop();
+  }
+
   @EventListener
   public void onPostDeploy(PostDeployEvent event) {
-    externalTaskCreationListener = new ExternalTaskCreationListener(this);
+    externalTaskCreationListener = new ExternalTaskCreationListener(this, externalTaskCreationPlugin != null);
     externalTaskCreationListener.start();
+    if (externalTaskCreationPlugin != null) {
+      if (properties.isHandOff()) {
+        externalTaskAvailabilityListener = new HandOffDispatcher(this, externalTaskCreationListener, properties.getHandOffPoolSize());
+      } else {
+        externalTaskAvailabilityListener = externalTaskCreationListener;
+      }
+      externalTaskCreationPlugin.addListener(externalTaskAvailabilityListener);
+    }
   }
 
   @EventListener
   public void onPreUndeploy(PreUndeployEvent event) {
+    if (externalTaskAvailabilityListener != null) {
+      externalTaskCreationPlugin.removeListener(externalTaskAvailabilityListener);
+      if (externalTaskAvailabilityListener instanceof HandOffDispatcher) {
+        ((HandOffDispatcher) externalTaskAvailabilityListener).shutdown();
+      }
+      externalTaskAvailabilityListener = null;
+    }
     if (externalTaskCreationListener != null) {
       externalTaskCreationListener.shutdown();
       externalTaskCreationListener = null;
     }
   }
+
+  protected static class Reservation {
+
+    private final WaitingClient waitingClient;
+    private final FetchAndLockRequest request;
+    private final int maxTasks;
+
+    protected Reservation(WaitingClient waitingClient, FetchAndLockRequest request, int maxTasks) {
+      this.waitingClient = waitingClient;
+      this.request = request;
+      this.maxTasks = maxTasks;
+    }
+
+    protected void release() {
+      waitingClient.release(maxTasks);
+    }
+  }
 }
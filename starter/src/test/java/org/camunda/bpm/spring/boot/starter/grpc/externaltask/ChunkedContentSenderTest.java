@@ -0,0 +1,159 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.camunda.bpm.grpc.GetBinaryVariableResponse;
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Status;
+
+public class ChunkedContentSenderTest {
+
+  private static final byte[] CONTENT = new byte[] { 1, 2, 3, 4, 5, 6, 7 };
+
+  private final FakeServerCallStreamObserver<GetBinaryVariableResponse> client = new FakeServerCallStreamObserver<>();
+  private final ChunkedContentSender sender = new ChunkedContentSender(client, 3);
+
+  @Test
+  public void shouldSendContentInChunks() {
+    RecordingInputStream content = new RecordingInputStream(CONTENT);
+
+    sender.start(content);
+
+    assertEquals(3, client.messages.size());
+    assertEquals(ByteString.copyFrom(new byte[] { 1, 2, 3 }), client.messages.get(0).getData());
+    assertEquals(ByteString.copyFrom(new byte[] { 4, 5, 6 }), client.messages.get(1).getData());
+    assertEquals(ByteString.copyFrom(new byte[] { 7 }), client.messages.get(2).getData());
+    assertTrue(client.completed);
+    assertTrue(content.closed);
+  }
+
+  @Test
+  public void shouldFillChunksOfSlowContent() {
+    // returns a single byte per read
+    RecordingInputStream content = new RecordingInputStream(CONTENT) {
+
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(1, len));
+      }
+    };
+
+    sender.start(content);
+
+    assertEquals(3, client.messages.size());
+    assertEquals(3, client.messages.get(0).getData().size());
+    assertEquals(3, client.messages.get(1).getData().size());
+  }
+
+  @Test
+  public void shouldOnlyReadWhileReady() {
+    RecordingInputStream content = new RecordingInputStream(CONTENT);
+    client.setReady(false);
+
+    sender.start(content);
+
+    assertEquals(0, client.messages.size());
+    assertEquals(CONTENT.length, content.available());
+
+    client.setReady(true);
+
+    assertArrayEquals(CONTENT, received());
+    assertTrue(client.completed);
+  }
+
+  @Test
+  public void shouldCloseContentOnCancel() {
+    RecordingInputStream content = new RecordingInputStream(CONTENT);
+    client.setReady(false);
+    sender.start(content);
+
+    client.cancel();
+    client.setReady(true);
+
+    assertTrue(content.closed);
+    assertEquals(0, client.messages.size());
+    assertFalse(client.completed);
+  }
+
+  @Test
+  public void shouldCloseContentStartedAfterCancel() {
+    RecordingInputStream content = new RecordingInputStream(CONTENT);
+    client.cancel();
+
+    sender.start(content);
+
+    assertTrue(content.closed);
+    assertEquals(0, client.messages.size());
+  }
+
+  @Test
+  public void shouldFailOnUnreadableContent() {
+    FailingInputStream content = new FailingInputStream();
+
+    sender.start(content);
+
+    assertEquals(Status.Code.INTERNAL, Status.fromThrowable(client.error).getCode());
+    assertTrue(content.closed);
+    assertFalse(client.completed);
+  }
+
+  @Test
+  public void shouldFailWithoutSendingContent() {
+    IllegalStateException failure = new IllegalStateException("expected");
+
+    sender.fail(failure);
+    sender.start(new RecordingInputStream(CONTENT));
+
+    assertSame(failure, client.error);
+    assertEquals(0, client.messages.size());
+  }
+
+  protected byte[] received() {
+    ByteString data = ByteString.EMPTY;
+    for (GetBinaryVariableResponse response : client.messages) {
+      data = data.concat(response.getData());
+    }
+    return data.toByteArray();
+  }
+
+  protected static class RecordingInputStream extends ByteArrayInputStream {
+
+    protected volatile boolean closed;
+
+    protected RecordingInputStream(byte[] content) {
+      super(content);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  protected static class FailingInputStream extends InputStream {
+
+    protected volatile boolean closed;
+
+    @Override
+    public int read() throws IOException {
+      throw new IOException("expected");
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+}
@@ -0,0 +1,86 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.EngineCallExecutor.Lane;
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.GrpcExternalTaskProperties.LaneProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.grpc.Status;
+
+public class EngineCallExecutorTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private EngineCallExecutor engineCallExecutor;
+
+  @BeforeEach
+  public void createEngineCallExecutor() {
+    GrpcExternalTaskProperties properties = new GrpcExternalTaskProperties();
+    properties.setControlLane(new LaneProperties(1, 1));
+    properties.setHeavyLane(new LaneProperties(1, 1));
+    engineCallExecutor = new EngineCallExecutor(properties);
+  }
+
+  @AfterEach
+  public void shutdownEngineCallExecutor() {
+    release.countDown();
+    engineCallExecutor.shutdown();
+  }
+
+  @Test
+  public void shouldRejectCallsBeyondLaneCapacity() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+
+    assertTrue(engineCallExecutor.execute(Lane.HEAVY, () -> block(started)));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertTrue(engineCallExecutor.execute(Lane.HEAVY, () -> {}));
+
+    assertFalse(engineCallExecutor.execute(Lane.HEAVY, () -> {}));
+  }
+
+  @Test
+  public void shouldRunControlCallsDespiteExhaustedHeavyLane() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    engineCallExecutor.execute(Lane.HEAVY, () -> block(started));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    engineCallExecutor.execute(Lane.HEAVY, () -> {});
+    CountDownLatch controlCallRun = new CountDownLatch(1);
+
+    assertTrue(engineCallExecutor.execute(Lane.CONTROL, controlCallRun::countDown));
+
+    assertTrue(controlCallRun.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldAnswerRejectedCallWithResourceExhausted() throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    engineCallExecutor.execute(Lane.CONTROL, () -> block(started));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    FakeServerCallStreamObserver<Object> queuedClient = new FakeServerCallStreamObserver<>();
+    FakeServerCallStreamObserver<Object> rejectedClient = new FakeServerCallStreamObserver<>();
+
+    engineCallExecutor.execute(Lane.CONTROL, queuedClient, () -> {});
+    engineCallExecutor.execute(Lane.CONTROL, rejectedClient, () -> {});
+
+    assertNull(queuedClient.error);
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(rejectedClient.error).getCode());
+  }
+
+  protected void block(CountDownLatch started) {
+    started.countDown();
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
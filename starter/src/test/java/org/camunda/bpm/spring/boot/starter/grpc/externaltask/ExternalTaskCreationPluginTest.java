@@ -0,0 +1,112 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.interceptor.Session;
+import org.camunda.bpm.engine.impl.interceptor.SessionFactory;
+import org.camunda.bpm.engine.impl.persistence.entity.ExternalTaskManager;
+import org.junit.jupiter.api.Test;
+
+public class ExternalTaskCreationPluginTest {
+
+  private final ExternalTaskCreationPlugin plugin = new ExternalTaskCreationPlugin();
+
+  @Test
+  public void shouldReplaceExternalTaskManager() {
+    StandaloneInMemProcessEngineConfiguration configuration = new StandaloneInMemProcessEngineConfiguration();
+
+    plugin.preInit(configuration);
+
+    assertEquals(1, configuration.getCustomSessionFactories().size());
+    SessionFactory sessionFactory = configuration.getCustomSessionFactories().get(0);
+    assertEquals(ExternalTaskManager.class, sessionFactory.getSessionType());
+    assertTrue(sessionFactory.openSession() instanceof TopicPublishingExternalTaskManager);
+  }
+
+  @Test
+  public void shouldKeepOtherCustomSessionFactories() {
+    StandaloneInMemProcessEngineConfiguration configuration = new StandaloneInMemProcessEngineConfiguration();
+    SessionFactory otherSessionFactory = new SessionFactory() {
+
+      @Override
+      public Class<?> getSessionType() {
+        return Session.class;
+      }
+
+      @Override
+      public Session openSession() {
+        return null;
+      }
+    };
+    configuration.setCustomSessionFactories(new ArrayList<>(Collections.singletonList(otherSessionFactory)));
+
+    plugin.preInit(configuration);
+
+    assertEquals(2, configuration.getCustomSessionFactories().size());
+    assertEquals(otherSessionFactory, configuration.getCustomSessionFactories().get(0));
+  }
+
+  @Test
+  public void shouldPublishToAllListenersDespiteFailingOne() {
+    RecordingListener listener = new RecordingListener();
+    plugin.addListener(new FailingListener());
+    plugin.addListener(listener);
+
+    plugin.publishTopics(Arrays.asList("a", "b"));
+    plugin.publishTasks();
+
+    assertEquals(Arrays.asList("a", "b"), listener.topicNames);
+    assertEquals(1, listener.tasksAvailable);
+  }
+
+  @Test
+  public void shouldNotPublishToRemovedListener() {
+    RecordingListener listener = new RecordingListener();
+    plugin.addListener(listener);
+    plugin.removeListener(listener);
+
+    plugin.publishTopics(Collections.singletonList("a"));
+    plugin.publishTasks();
+
+    assertEquals(0, listener.topicNames.size());
+    assertEquals(0, listener.tasksAvailable);
+  }
+
+  protected static class RecordingListener implements ExternalTaskAvailabilityListener {
+
+    protected final List<String> topicNames = new ArrayList<>();
+    protected int tasksAvailable;
+
+    @Override
+    public void topicsAvailable(Collection<String> topicNames) {
+      this.topicNames.addAll(topicNames);
+    }
+
+    @Override
+    public void tasksAvailable() {
+      tasksAvailable++;
+    }
+  }
+
+  protected static class FailingListener implements ExternalTaskAvailabilityListener {
+
+    @Override
+    public void topicsAvailable(Collection<String> topicNames) {
+      throw new IllegalStateException("expected");
+    }
+
+    @Override
+    public void tasksAvailable() {
+      throw new IllegalStateException("expected");
+    }
+  }
+
+}
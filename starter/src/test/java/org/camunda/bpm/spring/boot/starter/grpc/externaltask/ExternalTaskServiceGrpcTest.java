@@ -0,0 +1,130 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.camunda.bpm.engine.ExternalTaskService;
+import org.camunda.bpm.engine.ProcessEngine;
+import org.camunda.bpm.engine.RuntimeService;
+import org.camunda.bpm.engine.externaltask.ExternalTaskQuery;
+import org.camunda.bpm.engine.impl.persistence.entity.ExternalTaskEntity;
+import org.camunda.bpm.engine.impl.util.ClockUtil;
+import org.camunda.bpm.engine.variable.Variables;
+import org.camunda.bpm.grpc.GetVariablesRequest;
+import org.camunda.bpm.grpc.GetVariablesResponse;
+import org.camunda.bpm.grpc.core.VariableUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.grpc.Status;
+
+public class ExternalTaskServiceGrpcTest {
+
+  private final ExternalTaskServiceGrpc externalTaskServiceGrpc = new ExternalTaskServiceGrpc();
+  private final FakeServerCallStreamObserver<GetVariablesResponse> client = new FakeServerCallStreamObserver<>();
+  private final List<String> readExecutionIds = new CopyOnWriteArrayList<>();
+  private ExternalTaskEntity task;
+
+  @BeforeEach
+  public void injectServices() {
+    ClockUtil.setCurrentTime(new Date(1000000));
+    task = new ExternalTaskEntity();
+    task.setId("task");
+    task.setExecutionId("execution");
+    task.setWorkerId("worker");
+    task.setLockExpirationTime(new Date(2000000));
+
+    ExternalTaskQuery query = fake(ExternalTaskQuery.class, (proxy, method, args) ->
+        method.getName().equals("singleResult") ? task : proxy);
+    ExternalTaskService externalTaskService = fake(ExternalTaskService.class, (proxy, method, args) -> query);
+    RuntimeService runtimeService = fake(RuntimeService.class, (proxy, method, args) -> {
+      readExecutionIds.add((String) args[0]);
+      return Variables.createVariables().putValue("answer", 42);
+    });
+    ProcessEngine processEngine = fake(ProcessEngine.class, (proxy, method, args) -> runtimeService);
+    ReflectionTestUtils.setField(externalTaskServiceGrpc, "externalTaskService", externalTaskService);
+    ReflectionTestUtils.setField(externalTaskServiceGrpc, "processEngine", processEngine);
+  }
+
+  @AfterEach
+  public void resetClock() {
+    ClockUtil.reset();
+  }
+
+  @Test
+  public void shouldGetVariablesOfTaskLockedByWorker() {
+    externalTaskServiceGrpc.doGetVariables(request("worker"), client);
+
+    assertNull(client.error);
+    assertTrue(client.completed);
+    assertEquals(42, VariableUtils.unpackValue(client.messages.get(0).getVariablesMap().get("answer"), false));
+    assertEquals("execution", readExecutionIds.get(0));
+  }
+
+  @Test
+  public void shouldDenyVariablesOfTaskLockedByOtherWorker() {
+    externalTaskServiceGrpc.doGetVariables(request("other"), client);
+
+    assertEquals(Status.Code.PERMISSION_DENIED, Status.fromThrowable(client.error).getCode());
+    assertEquals(0, readExecutionIds.size());
+  }
+
+  @Test
+  public void shouldDenyVariablesOfTaskWithExpiredLock() {
+    task.setLockExpirationTime(new Date(500000));
+
+    externalTaskServiceGrpc.doGetVariables(request("worker"), client);
+
+    assertEquals(Status.Code.PERMISSION_DENIED, Status.fromThrowable(client.error).getCode());
+    assertEquals(0, readExecutionIds.size());
+  }
+
+  @Test
+  public void shouldDenyVariablesOfUnlockedTask() {
+    task.setWorkerId(null);
+    task.setLockExpirationTime(null);
+
+    externalTaskServiceGrpc.doGetVariables(request(""), client);
+
+    assertEquals(Status.Code.PERMISSION_DENIED, Status.fromThrowable(client.error).getCode());
+    assertFalse(client.completed);
+  }
+
+  @Test
+  public void shouldAnswerNotFoundForUnknownTask() {
+    task = null;
+
+    externalTaskServiceGrpc.doGetVariables(request("worker"), client);
+
+    assertEquals(Status.Code.NOT_FOUND, Status.fromThrowable(client.error).getCode());
+  }
+
+  protected static GetVariablesRequest request(String workerId) {
+    return GetVariablesRequest.newBuilder().setTaskId("task").setWorkerId(workerId).build();
+  }
+
+  /**
+   * Creates a fake of a service interface, methods of {@link Object} are not
+   * delegated to the handler.
+   */
+  @SuppressWarnings("unchecked")
+  protected static <T> T fake(Class<T> type, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+      if (method.getDeclaringClass() == Object.class) {
+        return method.getName().equals("toString") ? type.getSimpleName() : method.invoke(handler, args);
+      }
+      return handler.invoke(proxy, method, args);
+    });
+  }
+
+}
@@ -0,0 +1,88 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+/**
+ * Records everything sent to the client, the transport is ready unless told
+ * otherwise.
+ */
+public class FakeServerCallStreamObserver<T> extends ServerCallStreamObserver<T> {
+
+  protected final List<T> messages = new CopyOnWriteArrayList<>();
+  protected volatile Throwable error;
+  protected volatile boolean completed;
+  protected volatile boolean ready = true;
+  protected volatile boolean cancelled;
+  private Runnable onReadyHandler;
+  private Runnable onCancelHandler;
+
+  public void setReady(boolean ready) {
+    this.ready = ready;
+    if (ready && onReadyHandler != null) {
+      onReadyHandler.run();
+    }
+  }
+
+  public void cancel() {
+    cancelled = true;
+    ready = false;
+    if (onCancelHandler != null) {
+      onCancelHandler.run();
+    }
+  }
+
+  @Override
+  public void onNext(T value) {
+    messages.add(value);
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    error = t;
+  }
+
+  @Override
+  public void onCompleted() {
+    completed = true;
+  }
+
+  @Override
+  public boolean isReady() {
+    return ready;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  @Override
+  public void setOnReadyHandler(Runnable onReadyHandler) {
+    this.onReadyHandler = onReadyHandler;
+  }
+
+  @Override
+  public void setOnCancelHandler(Runnable onCancelHandler) {
+    this.onCancelHandler = onCancelHandler;
+  }
+
+  @Override
+  public void setCompression(String compression) {
+  }
+
+  @Override
+  public void disableAutoInboundFlowControl() {
+  }
+
+  @Override
+  public void request(int count) {
+  }
+
+  @Override
+  public void setMessageCompression(boolean enable) {
+  }
+
+}
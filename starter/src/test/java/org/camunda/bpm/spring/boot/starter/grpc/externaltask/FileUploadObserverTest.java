@@ -0,0 +1,179 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.engine.variable.VariableMap;
+import org.camunda.bpm.engine.variable.value.FileValue;
+import org.camunda.bpm.grpc.CompleteRequest;
+import org.camunda.bpm.grpc.CompleteResponse;
+import org.camunda.bpm.grpc.CompleteUploadRequest;
+import org.camunda.bpm.grpc.FileVariableHeader;
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.GrpcExternalTaskProperties.LaneProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+public class FileUploadObserverTest {
+
+  private final FakeServerCallStreamObserver<CompleteResponse> client = new FakeServerCallStreamObserver<>();
+  private final RecordingExternalTaskService externalTaskServiceGrpc = new RecordingExternalTaskService();
+  private EngineCallExecutor engineCallExecutor;
+  private Set<Path> existingUploads;
+
+  @BeforeEach
+  public void createEngineCallExecutor() throws IOException {
+    GrpcExternalTaskProperties properties = new GrpcExternalTaskProperties();
+    properties.setHeavyLane(new LaneProperties(1, 1));
+    engineCallExecutor = new EngineCallExecutor(properties);
+    existingUploads = uploadedFiles();
+  }
+
+  @AfterEach
+  public void shutdownEngineCallExecutor() {
+    engineCallExecutor.shutdown();
+  }
+
+  @Test
+  public void shouldCompleteWithUploadedFiles() throws Exception {
+    FileUploadObserver observer = new FileUploadObserver(externalTaskServiceGrpc, engineCallExecutor, 0, client);
+
+    observer.onNext(CompleteUploadRequest.newBuilder().setComplete(CompleteRequest.newBuilder().setId("task")).build());
+    observer.onNext(file(FileVariableHeader.newBuilder().setName("report").setFilename("report.txt").setMimeType("text/plain")));
+    observer.onNext(chunk("hel"));
+    observer.onNext(chunk("lo"));
+    observer.onNext(file(FileVariableHeader.newBuilder().setName("note").setFilename("note.txt").setLocal(true)));
+    observer.onNext(chunk("local"));
+    observer.onCompleted();
+
+    assertTrue(externalTaskServiceGrpc.completed.await(5, TimeUnit.SECONDS));
+    assertEquals("task", externalTaskServiceGrpc.request.getId());
+    FileValue report = externalTaskServiceGrpc.fileVariables.getValueTyped("report");
+    assertEquals("report.txt", report.getFilename());
+    assertEquals("text/plain", report.getMimeType());
+    assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), read(report));
+    FileValue note = externalTaskServiceGrpc.localFileVariables.getValueTyped("note");
+    assertEquals("note.txt", note.getFilename());
+    assertArrayEquals("local".getBytes(StandardCharsets.UTF_8), read(note));
+    assertEquals(existingUploads, uploadedFiles());
+    assertNull(client.error);
+  }
+
+  @Test
+  public void shouldRejectUploadExceedingMaximumSize() throws IOException {
+    FileUploadObserver observer = new FileUploadObserver(externalTaskServiceGrpc, engineCallExecutor, 4, client);
+    observer.onNext(CompleteUploadRequest.newBuilder().setComplete(CompleteRequest.newBuilder().setId("task")).build());
+    observer.onNext(file(FileVariableHeader.newBuilder().setName("report")));
+    observer.onNext(chunk("hel"));
+
+    observer.onNext(chunk("lo"));
+
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(client.error).getCode());
+    assertEquals(existingUploads, uploadedFiles());
+
+    observer.onNext(file(FileVariableHeader.newBuilder().setName("ignored")));
+    observer.onCompleted();
+
+    assertEquals(existingUploads, uploadedFiles());
+    assertFalse(externalTaskServiceGrpc.isCompleted());
+  }
+
+  @Test
+  public void shouldRejectChunkBeforeFile() {
+    FileUploadObserver observer = new FileUploadObserver(externalTaskServiceGrpc, engineCallExecutor, 0, client);
+
+    observer.onNext(chunk("hello"));
+
+    assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(client.error).getCode());
+  }
+
+  @Test
+  public void shouldRejectUploadWithoutCompletion() throws IOException {
+    FileUploadObserver observer = new FileUploadObserver(externalTaskServiceGrpc, engineCallExecutor, 0, client);
+    observer.onNext(file(FileVariableHeader.newBuilder().setName("report")));
+    observer.onNext(chunk("hello"));
+
+    observer.onCompleted();
+
+    assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(client.error).getCode());
+    assertEquals(existingUploads, uploadedFiles());
+    assertFalse(externalTaskServiceGrpc.isCompleted());
+  }
+
+  @Test
+  public void shouldDeleteUploadedFilesWhenClientAborts() throws IOException {
+    FileUploadObserver observer = new FileUploadObserver(externalTaskServiceGrpc, engineCallExecutor, 0, client);
+    observer.onNext(file(FileVariableHeader.newBuilder().setName("report")));
+    observer.onNext(chunk("hello"));
+    assertEquals(existingUploads.size() + 1, uploadedFiles().size());
+
+    observer.onError(Status.CANCELLED.asRuntimeException());
+
+    assertEquals(existingUploads, uploadedFiles());
+    assertNull(client.error);
+  }
+
+  protected static CompleteUploadRequest file(FileVariableHeader.Builder header) {
+    return CompleteUploadRequest.newBuilder().setFile(header).build();
+  }
+
+  protected static CompleteUploadRequest chunk(String content) {
+    return CompleteUploadRequest.newBuilder().setChunk(ByteString.copyFromUtf8(content)).build();
+  }
+
+  protected static byte[] read(FileValue fileValue) throws IOException {
+    try (InputStream content = fileValue.getValue()) {
+      return ByteString.readFrom(content).toByteArray();
+    }
+  }
+
+  protected static Set<Path> uploadedFiles() throws IOException {
+    Set<Path> files = new HashSet<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(System.getProperty("java.io.tmpdir")), "camunda-grpc-upload*")) {
+      stream.forEach(files::add);
+    }
+    return files;
+  }
+
+  protected static class RecordingExternalTaskService extends ExternalTaskServiceGrpc {
+
+    protected final CountDownLatch completed = new CountDownLatch(1);
+    protected volatile CompleteRequest request;
+    protected volatile VariableMap fileVariables;
+    protected volatile VariableMap localFileVariables;
+
+    @Override
+    protected void doCompleteWithFiles(CompleteRequest request, VariableMap files, VariableMap localFiles,
+        StreamObserver<CompleteResponse> responseObserver) {
+      this.request = request;
+      this.fileVariables = files;
+      this.localFileVariables = localFiles;
+      completed.countDown();
+    }
+
+    protected boolean isCompleted() {
+      return completed.getCount() == 0;
+    }
+  }
+
+}
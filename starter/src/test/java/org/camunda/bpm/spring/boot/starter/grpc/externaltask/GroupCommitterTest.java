@@ -0,0 +1,129 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.GrpcExternalTaskProperties.GroupCommitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class GroupCommitterTest {
+
+  private final RecordingCommandExecutor groupedCommandExecutor = new RecordingCommandExecutor();
+  private final Map<String, Exception> answers = new ConcurrentHashMap<>();
+  private GroupCommitter groupCommitter;
+
+  @AfterEach
+  public void shutdownGroupCommitter() {
+    groupCommitter.shutdown();
+  }
+
+  @Test
+  public void shouldCommitFullGroupAndAnswerEveryOperation() throws InterruptedException {
+    // the group is only committed early because it is full
+    groupCommitter = new GroupCommitter(groupedCommandExecutor, properties(1, 3, TimeUnit.SECONDS.toMicros(10), 10));
+    IllegalStateException failure = new IllegalStateException("expected");
+    CountDownLatch answered = new CountDownLatch(3);
+
+    assertTrue(submit("A", null, answered));
+    assertTrue(submit("B", failure, answered));
+    assertTrue(submit("C", null, answered));
+
+    assertTrue(answered.await(5, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList(3), groupedCommandExecutor.groupSizes);
+    assertNull(answers.get("A"));
+    assertSame(failure, answers.get("B"));
+    assertNull(answers.get("C"));
+  }
+
+  @Test
+  public void shouldCommitPendingOperationsOnShutdown() {
+    groupCommitter = new GroupCommitter(groupedCommandExecutor, properties(0, 2, 500, 10));
+    CountDownLatch answered = new CountDownLatch(3);
+
+    submit("A", null, answered);
+    submit("B", null, answered);
+    submit("C", null, answered);
+    assertEquals(3, answered.getCount());
+
+    groupCommitter.shutdown();
+
+    assertEquals(0, answered.getCount());
+    assertEquals(Arrays.asList(2, 1), groupedCommandExecutor.groupSizes);
+    assertFalse(submit("D", null, answered));
+  }
+
+  @Test
+  public void shouldNotQueueOperationsBeyondCapacity() {
+    groupCommitter = new GroupCommitter(groupedCommandExecutor, properties(0, 2, 500, 1));
+    CountDownLatch answered = new CountDownLatch(1);
+
+    assertTrue(submit("A", null, answered));
+    assertFalse(submit("B", null, answered));
+  }
+
+  protected boolean submit(String name, RuntimeException failure, CountDownLatch answered) {
+    Runnable operation = () -> {
+      if (failure != null) {
+        throw failure;
+      }
+    };
+    return groupCommitter.submit(operation, exception -> {
+      if (exception != null) {
+        answers.put(name, exception);
+      }
+      answered.countDown();
+    });
+  }
+
+  protected GroupCommitProperties properties(int threads, int maxSize, long maxWaitMicros, int queueCapacity) {
+    GroupCommitProperties properties = new GroupCommitProperties();
+    properties.setEnabled(true);
+    properties.setThreads(threads);
+    properties.setMaxSize(maxSize);
+    properties.setMaxWaitMicros(maxWaitMicros);
+    properties.setQueueCapacity(queueCapacity);
+    return properties;
+  }
+
+  /**
+   * Runs the operations of a group one after another and records the size of
+   * every group.
+   */
+  protected static class RecordingCommandExecutor extends GroupedCommandExecutor {
+
+    protected final List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+
+    public RecordingCommandExecutor() {
+      super(null);
+    }
+
+    @Override
+    public List<Exception> execute(List<? extends Runnable> operations) {
+      groupSizes.add(operations.size());
+      List<Exception> results = new ArrayList<>(operations.size());
+      for (Runnable operation : operations) {
+        try {
+          operation.run();
+          results.add(null);
+        } catch (Exception e) {
+          results.add(e);
+        }
+      }
+      return results;
+    }
+  }
+
+}
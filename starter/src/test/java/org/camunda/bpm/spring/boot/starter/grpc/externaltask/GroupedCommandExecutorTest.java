@@ -0,0 +1,90 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.interceptor.Command;
+import org.camunda.bpm.engine.impl.interceptor.CommandExecutor;
+import org.junit.jupiter.api.Test;
+
+public class GroupedCommandExecutorTest {
+
+  private final TransactionalCommandExecutor commandExecutor = new TransactionalCommandExecutor();
+  private final GroupedCommandExecutor groupedCommandExecutor = new GroupedCommandExecutor(null) {
+
+    @Override
+    protected CommandExecutor getCommandExecutor() {
+      return commandExecutor;
+    }
+  };
+
+  @Test
+  public void shouldExecuteGroupInOneTransaction() {
+    List<Exception> results = groupedCommandExecutor.execute(Arrays.asList(operation("A"), operation("B"), operation("C")));
+
+    assertEquals(Arrays.asList(null, null, null), results);
+    assertEquals(1, commandExecutor.transactions);
+    assertEquals(Arrays.asList("A", "B", "C"), commandExecutor.committed);
+  }
+
+  @Test
+  public void shouldRollBackGroupAndRetryOperationsSingly() {
+    IllegalStateException failure = new IllegalStateException("expected");
+
+    List<Exception> results = groupedCommandExecutor.execute(Arrays.asList(operation("A"), () -> {
+      throw failure;
+    }, operation("C")));
+
+    assertEquals(3, results.size());
+    assertNull(results.get(0));
+    assertSame(failure, results.get(1));
+    assertNull(results.get(2));
+    // the group and each of its three operations
+    assertEquals(4, commandExecutor.transactions);
+    assertEquals(Arrays.asList("A", "C"), commandExecutor.committed);
+  }
+
+  @Test
+  public void shouldNotRetrySingleOperation() {
+    IllegalStateException failure = new IllegalStateException("expected");
+
+    List<Exception> results = groupedCommandExecutor.execute(Arrays.asList(() -> {
+      throw failure;
+    }));
+
+    assertEquals(1, results.size());
+    assertSame(failure, results.get(0));
+    assertEquals(1, commandExecutor.transactions);
+    assertEquals(0, commandExecutor.committed.size());
+  }
+
+  protected Runnable operation(String name) {
+    return () -> commandExecutor.transaction.add(name);
+  }
+
+  /**
+   * Keeps the operations of a command apart until it succeeded, like the
+   * transaction of the engine's command executor.
+   */
+  protected static class TransactionalCommandExecutor implements CommandExecutor {
+
+    protected final List<String> committed = new ArrayList<>();
+    protected List<String> transaction;
+    protected int transactions;
+
+    @Override
+    public <T> T execute(Command<T> command) {
+      transaction = new ArrayList<>();
+      transactions++;
+      T result = command.execute(null);
+      committed.addAll(transaction);
+      return result;
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.ExternalTaskCreationPluginTest.RecordingListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class HandOffDispatcherTest {
+
+  private final RecordingInformer informer = new RecordingInformer();
+  private final RecordingListener fallback = new RecordingListener();
+  private final HandOffDispatcher dispatcher = new HandOffDispatcher(informer, fallback, 2);
+
+  @AfterEach
+  public void shutdownDispatcher() {
+    dispatcher.shutdown();
+  }
+
+  @Test
+  public void shouldHandOffEveryCreatedTask() throws InterruptedException {
+    informer.expectHandOffs(3);
+
+    dispatcher.topicsAvailable(Arrays.asList("a", "b", "a"));
+
+    assertTrue(informer.handedOff.await(1, TimeUnit.SECONDS));
+    assertEquals(3, informer.topicNames.size());
+    assertEquals(new HashSet<>(Arrays.asList("a", "b")), new HashSet<>(informer.topicNames));
+    assertEquals(0, fallback.topicNames.size());
+  }
+
+  @Test
+  public void shouldWakeUpWaitingClientsOnceShutDown() {
+    dispatcher.shutdown();
+
+    dispatcher.topicsAvailable(Collections.singletonList("a"));
+
+    assertEquals(Collections.singletonList("a"), fallback.topicNames);
+    assertEquals(0, informer.topicNames.size());
+  }
+
+  @Test
+  public void shouldWakeUpWaitingClientsForTasksOfUnknownTopics() {
+    dispatcher.tasksAvailable();
+
+    assertEquals(1, fallback.tasksAvailable);
+  }
+
+  protected static class RecordingInformer extends WaitingClientInformer {
+
+    protected final List<String> topicNames = new CopyOnWriteArrayList<>();
+    protected CountDownLatch handedOff = new CountDownLatch(0);
+
+    protected void expectHandOffs(int handOffs) {
+      handedOff = new CountDownLatch(handOffs);
+    }
+
+    @Override
+    public void handOff(String topicName) {
+      topicNames.add(topicName);
+      handedOff.countDown();
+    }
+  }
+
+}
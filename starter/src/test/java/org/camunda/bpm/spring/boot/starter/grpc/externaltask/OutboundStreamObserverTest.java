@@ -0,0 +1,148 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.camunda.bpm.engine.ExternalTaskService;
+import org.camunda.bpm.grpc.FetchAndLockResponse;
+import org.camunda.bpm.grpc.LockedExternalTaskDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.grpc.Status;
+
+public class OutboundStreamObserverTest {
+
+  private final FakeServerCallStreamObserver<String> client = new FakeServerCallStreamObserver<>();
+  private final List<String> discarded = new CopyOnWriteArrayList<>();
+  private final OutboundStreamObserver<String> observer = new OutboundStreamObserver<>(client, 2, discarded::add);
+
+  @Test
+  public void shouldSendRightAwayWhileReady() {
+    observer.onNext("A");
+    observer.onNext("B");
+    observer.onNext("C");
+    observer.onCompleted();
+
+    assertEquals(Arrays.asList("A", "B", "C"), client.messages);
+    assertTrue(client.completed);
+    assertEquals(0, discarded.size());
+  }
+
+  @Test
+  public void shouldBufferUntilReady() {
+    client.setReady(false);
+
+    observer.onNext("A");
+    observer.onNext("B");
+    observer.onCompleted();
+
+    assertEquals(0, client.messages.size());
+    assertFalse(client.completed);
+
+    client.setReady(true);
+
+    assertEquals(Arrays.asList("A", "B"), client.messages);
+    assertTrue(client.completed);
+  }
+
+  @Test
+  public void shouldCloseStreamWhenBufferIsExceeded() {
+    client.setReady(false);
+
+    observer.onNext("A");
+    observer.onNext("B");
+    observer.onNext("C");
+
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(client.error).getCode());
+    assertTrue(observer.isCancelled());
+    assertEquals(Arrays.asList("C", "A", "B"), discarded);
+
+    client.setReady(true);
+    observer.onNext("D");
+
+    assertEquals(0, client.messages.size());
+    assertEquals(Arrays.asList("C", "A", "B", "D"), discarded);
+  }
+
+  @Test
+  public void shouldDiscardBufferedMessagesOfCancelledStream() {
+    client.setReady(false);
+    observer.onNext("A");
+
+    client.cancel();
+    observer.onNext("B");
+
+    assertTrue(observer.isCancelled());
+    assertEquals(Arrays.asList("A", "B"), discarded);
+    assertEquals(0, client.messages.size());
+    assertNull(client.error);
+  }
+
+  @Test
+  public void shouldDiscardBufferedMessagesOnError() {
+    client.setReady(false);
+    observer.onNext("A");
+    IllegalStateException failure = new IllegalStateException("expected");
+
+    observer.onError(failure);
+
+    assertEquals(failure, client.error);
+    assertEquals(Collections.singletonList("A"), discarded);
+  }
+
+  @Test
+  public void shouldKeepDiscardingDespiteFailingHandler() {
+    FakeServerCallStreamObserver<String> slowClient = new FakeServerCallStreamObserver<>();
+    OutboundStreamObserver<String> failingObserver = new OutboundStreamObserver<>(slowClient, 2, message -> {
+      discarded.add(message);
+      throw new IllegalStateException("expected");
+    });
+    slowClient.setReady(false);
+    failingObserver.onNext("A");
+    failingObserver.onNext("B");
+
+    slowClient.cancel();
+
+    assertEquals(Arrays.asList("A", "B"), discarded);
+  }
+
+  @Test
+  public void shouldUnlockTasksOfUndeliverableResponses() {
+    List<String> unlockedTaskIds = new CopyOnWriteArrayList<>();
+    ExternalTaskServiceGrpc externalTaskServiceGrpc = new ExternalTaskServiceGrpc();
+    ReflectionTestUtils.setField(externalTaskServiceGrpc, "externalTaskService", Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { ExternalTaskService.class }, (proxy, method, args) -> {
+          if (method.getName().equals("unlock")) {
+            unlockedTaskIds.add((String) args[0]);
+            return null;
+          }
+          if (method.getName().equals("toString")) {
+            return "RecordingExternalTaskService";
+          }
+          throw new UnsupportedOperationException(method.getName());
+        }));
+    FakeServerCallStreamObserver<FetchAndLockResponse> slowClient = new FakeServerCallStreamObserver<>();
+    OutboundStreamObserver<FetchAndLockResponse> fetchAndLockObserver = new OutboundStreamObserver<>(slowClient, 1,
+        externalTaskServiceGrpc::unlockTasks);
+    slowClient.setReady(false);
+
+    fetchAndLockObserver.onNext(FetchAndLockResponse.newBuilder().setId("single").build());
+    fetchAndLockObserver.onNext(FetchAndLockResponse.newBuilder()
+        .addTasks(LockedExternalTaskDto.newBuilder().setId("first"))
+        .addTasks(LockedExternalTaskDto.newBuilder().setId("second"))
+        .build());
+
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(slowClient.error).getCode());
+    assertEquals(Arrays.asList("first", "second", "single"), unlockedTaskIds);
+  }
+
+}
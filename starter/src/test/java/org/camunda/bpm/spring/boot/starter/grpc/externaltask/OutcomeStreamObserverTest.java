@@ -0,0 +1,163 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.camunda.bpm.engine.exception.NotFoundException;
+import org.camunda.bpm.grpc.CompleteRequest;
+import org.camunda.bpm.grpc.OutcomeRequest;
+import org.camunda.bpm.grpc.OutcomeResponse;
+import org.camunda.bpm.grpc.UnlockRequest;
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.GrpcExternalTaskProperties.LaneProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class OutcomeStreamObserverTest {
+
+  private final FakeServerCallStreamObserver<OutcomeResponse> client = new FakeServerCallStreamObserver<>();
+  private final AnsweringExternalTaskService externalTaskServiceGrpc = new AnsweringExternalTaskService();
+  private EngineCallExecutor engineCallExecutor;
+  private OutcomeStreamObserver observer;
+
+  @BeforeEach
+  public void createObserver() {
+    GrpcExternalTaskProperties properties = new GrpcExternalTaskProperties();
+    properties.setControlLane(new LaneProperties(1, 1));
+    properties.setHeavyLane(new LaneProperties(2, 10));
+    engineCallExecutor = new EngineCallExecutor(properties);
+    observer = new OutcomeStreamObserver(externalTaskServiceGrpc, engineCallExecutor, client);
+  }
+
+  @AfterEach
+  public void shutdownEngineCallExecutor() {
+    externalTaskServiceGrpc.release.countDown();
+    engineCallExecutor.shutdown();
+  }
+
+  @Test
+  public void shouldAnswerEveryOutcomeWithItsCorrelationId() throws InterruptedException {
+    externalTaskServiceGrpc.failures.put("missing", new NotFoundException("expected"));
+
+    observer.onNext(complete(1, "task"));
+    observer.onNext(complete(2, "missing"));
+    observer.onNext(OutcomeRequest.newBuilder().setCorrelationId(3).build());
+
+    assertTrue(await(() -> client.messages.size() == 3));
+    Map<Long, OutcomeResponse> responses = responsesByCorrelationId();
+    assertEquals(HttpURLConnection.HTTP_NO_CONTENT, responses.get(1L).getStatus());
+    assertEquals(HttpURLConnection.HTTP_NOT_FOUND, responses.get(2L).getStatus());
+    assertEquals("expected", responses.get(2L).getErrorMessage());
+    // outcomes without content cannot be read
+    assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, responses.get(3L).getStatus());
+  }
+
+  @Test
+  public void shouldCompleteStreamOnceAllOutcomesAreAnswered() throws InterruptedException {
+    externalTaskServiceGrpc.blockedTaskIds.add("blocked");
+
+    observer.onNext(complete(1, "blocked"));
+    observer.onCompleted();
+
+    assertTrue(externalTaskServiceGrpc.blocking.await(5, TimeUnit.SECONDS));
+    assertFalse(client.completed);
+
+    externalTaskServiceGrpc.release.countDown();
+
+    assertTrue(await(() -> client.completed));
+    assertEquals(1, client.messages.size());
+    assertEquals(1L, client.messages.get(0).getCorrelationId());
+  }
+
+  @Test
+  public void shouldCompleteStreamWithoutOutcomes() {
+    observer.onCompleted();
+
+    assertTrue(client.completed);
+  }
+
+  @Test
+  public void shouldAnswerRejectedOutcomeWithItsCorrelationId() throws InterruptedException {
+    externalTaskServiceGrpc.blockedTaskIds.add("blocked");
+    observer.onNext(unlock(1, "blocked"));
+    assertTrue(externalTaskServiceGrpc.blocking.await(5, TimeUnit.SECONDS));
+    observer.onNext(unlock(2, "queued"));
+
+    observer.onNext(unlock(3, "rejected"));
+
+    assertEquals(1, client.messages.size());
+    assertEquals(3L, client.messages.get(0).getCorrelationId());
+    assertEquals(HttpURLConnection.HTTP_UNAVAILABLE, client.messages.get(0).getStatus());
+  }
+
+  protected static boolean await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    return condition.getAsBoolean();
+  }
+
+  protected Map<Long, OutcomeResponse> responsesByCorrelationId() {
+    Map<Long, OutcomeResponse> responses = new HashMap<>();
+    client.messages.forEach(response -> responses.put(response.getCorrelationId(), response));
+    return responses;
+  }
+
+  protected static OutcomeRequest complete(long correlationId, String taskId) {
+    return OutcomeRequest.newBuilder().setCorrelationId(correlationId).setComplete(CompleteRequest.newBuilder().setId(taskId)).build();
+  }
+
+  protected static OutcomeRequest unlock(long correlationId, String taskId) {
+    return OutcomeRequest.newBuilder().setCorrelationId(correlationId).setUnlock(UnlockRequest.newBuilder().setId(taskId)).build();
+  }
+
+  /**
+   * Answers outcomes with the failure registered for their task, outcomes of
+   * blocked tasks wait until released.
+   */
+  protected static class AnsweringExternalTaskService extends ExternalTaskServiceGrpc {
+
+    protected final Map<String, Exception> failures = new ConcurrentHashMap<>();
+    protected final Set<String> blockedTaskIds = ConcurrentHashMap.newKeySet();
+    protected final CountDownLatch blocking = new CountDownLatch(1);
+    protected final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    protected void executeOutcome(OutcomeRequest request, Consumer<Exception> callback) {
+      String taskId = getTaskId(request);
+      if (blockedTaskIds.contains(taskId)) {
+        blocking.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      callback.accept(failures.get(taskId));
+    }
+
+    protected static String getTaskId(OutcomeRequest request) {
+      switch (request.getOutcomeCase()) {
+      case COMPLETE:
+        return request.getComplete().getId();
+      case UNLOCK:
+        return request.getUnlock().getId();
+      default:
+        throw new IllegalArgumentException("No outcome given for correlation id " + request.getCorrelationId());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelTest {
+
+  private TimingWheel timingWheel;
+
+  @BeforeEach
+  public void createTimingWheel() {
+    // one round of the wheel takes 40 ms
+    timingWheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 4);
+  }
+
+  @AfterEach
+  public void stopTimingWheel() {
+    timingWheel.stop();
+  }
+
+  @Test
+  public void shouldExpireTimeoutAfterItsDelay() throws InterruptedException {
+    CountDownLatch expired = new CountDownLatch(1);
+    long start = System.nanoTime();
+
+    timingWheel.newTimeout(expired::countDown, 30, TimeUnit.MILLISECONDS);
+
+    assertTrue(expired.await(1, TimeUnit.SECONDS));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 30);
+  }
+
+  @Test
+  public void shouldExpireTimeoutSpanningSeveralRounds() throws InterruptedException {
+    CountDownLatch expired = new CountDownLatch(1);
+    long start = System.nanoTime();
+
+    timingWheel.newTimeout(expired::countDown, 130, TimeUnit.MILLISECONDS);
+
+    assertTrue(expired.await(1, TimeUnit.SECONDS));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 130);
+  }
+
+  @Test
+  public void shouldNotExpireCancelledTimeout() throws InterruptedException {
+    AtomicBoolean cancelledExpired = new AtomicBoolean();
+    CountDownLatch laterExpired = new CountDownLatch(1);
+
+    TimingWheel.Timeout timeout = timingWheel.newTimeout(() -> cancelledExpired.set(true), 20, TimeUnit.MILLISECONDS);
+    timingWheel.newTimeout(laterExpired::countDown, 60, TimeUnit.MILLISECONDS);
+    timeout.cancel();
+
+    assertTrue(laterExpired.await(1, TimeUnit.SECONDS));
+    assertFalse(cancelledExpired.get());
+  }
+
+  @Test
+  public void shouldExpireTimeoutAfterFailingOne() throws InterruptedException {
+    CountDownLatch expired = new CountDownLatch(1);
+
+    timingWheel.newTimeout(() -> {
+      throw new IllegalStateException("expected");
+    }, 10, TimeUnit.MILLISECONDS);
+    timingWheel.newTimeout(expired::countDown, 10, TimeUnit.MILLISECONDS);
+
+    assertTrue(expired.await(1, TimeUnit.SECONDS));
+  }
+
+}
@@ -0,0 +1,128 @@
+package org.camunda.bpm.spring.boot.starter.grpc.externaltask;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.camunda.bpm.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.camunda.bpm.engine.impl.cfg.TransactionContext;
+import org.camunda.bpm.engine.impl.cfg.TransactionListener;
+import org.camunda.bpm.engine.impl.cfg.TransactionState;
+import org.camunda.bpm.engine.impl.context.Context;
+import org.camunda.bpm.engine.impl.db.DbEntity;
+import org.camunda.bpm.engine.impl.db.entitymanager.DbEntityManager;
+import org.camunda.bpm.engine.impl.interceptor.CommandContext;
+import org.camunda.bpm.engine.impl.persistence.entity.ExternalTaskEntity;
+import org.camunda.bpm.spring.boot.starter.grpc.externaltask.ExternalTaskCreationPluginTest.RecordingListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TopicPublishingExternalTaskManagerTest {
+
+  private final RecordingListener listener = new RecordingListener();
+  private final FakeTransactionContext transactionContext = new FakeTransactionContext();
+  private final FakeDbEntityManager dbEntityManager = new FakeDbEntityManager();
+  private TopicPublishingExternalTaskManager externalTaskManager;
+
+  @BeforeEach
+  public void openCommandContext() {
+    ExternalTaskCreationPlugin plugin = new ExternalTaskCreationPlugin();
+    plugin.addListener(listener);
+    externalTaskManager = new TopicPublishingExternalTaskManager(plugin);
+
+    CommandContext commandContext = new CommandContext(new StandaloneInMemProcessEngineConfiguration(), context -> transactionContext);
+    commandContext.getSessions().put(DbEntityManager.class, dbEntityManager);
+    Context.setCommandContext(commandContext);
+  }
+
+  @AfterEach
+  public void closeCommandContext() {
+    Context.removeCommandContext();
+  }
+
+  @Test
+  public void shouldPublishTopicOfInsertedTaskOnCommit() {
+    ExternalTaskEntity externalTask = new ExternalTaskEntity();
+    externalTask.setTopicName("topic");
+
+    externalTaskManager.insert(externalTask);
+
+    assertEquals(Collections.singletonList(externalTask), dbEntityManager.inserted);
+    assertEquals(0, listener.topicNames.size());
+
+    transactionContext.commit();
+
+    assertEquals(Collections.singletonList("topic"), listener.topicNames);
+  }
+
+  @Test
+  public void shouldNotPublishTopicOnRollback() {
+    ExternalTaskEntity externalTask = new ExternalTaskEntity();
+    externalTask.setTopicName("topic");
+
+    externalTaskManager.insert(externalTask);
+    transactionContext.rollback();
+
+    assertEquals(0, listener.topicNames.size());
+  }
+
+  @Test
+  public void shouldPublishAvailableTasksOnCommit() {
+    externalTaskManager.fireExternalTaskAvailableEvent();
+
+    assertEquals(0, listener.tasksAvailable);
+
+    transactionContext.commit();
+
+    assertEquals(1, listener.tasksAvailable);
+    assertEquals(0, listener.topicNames.size());
+  }
+
+  /**
+   * Runs the listeners of committed transactions on commit only.
+   */
+  protected static class FakeTransactionContext implements TransactionContext {
+
+    protected final List<TransactionListener> committedListeners = new ArrayList<>();
+
+    @Override
+    public void commit() {
+      committedListeners.forEach(listener -> listener.execute(Context.getCommandContext()));
+    }
+
+    @Override
+    public void rollback() {
+      committedListeners.clear();
+    }
+
+    @Override
+    public void addTransactionListener(TransactionState transactionState, TransactionListener transactionListener) {
+      if (transactionState == TransactionState.COMMITTED) {
+        committedListeners.add(transactionListener);
+      }
+    }
+
+    @Override
+    public boolean isTransactionActive() {
+      return true;
+    }
+  }
+
+  protected static class FakeDbEntityManager extends DbEntityManager {
+
+    protected final List<DbEntity> inserted = new ArrayList<>();
+
+    public FakeDbEntityManager() {
+      super(null, null);
+    }
+
+    @Override
+    public void insert(DbEntity dbEntity) {
+      inserted.add(dbEntity);
+    }
+  }
+
+}